@@ -0,0 +1,68 @@
+package com.rss.core.map.graph;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Loads the bundled map.json into a {@link RoadGraph} without Spring or a database, normalized the way
+ * MapService stores it with the default {@code map.longitude}/{@code map.latitude}/{@code map.edge.speed}.
+ */
+final class BenchmarkMaps {
+    static final int MAX_X = 1700;
+    static final int MAX_Y = 1000;
+    static final int DEFAULT_SPEED = 50;
+
+    private BenchmarkMaps() {
+    }
+
+    static RoadGraph load() {
+        JsonNode root;
+        try (InputStream in = BenchmarkMaps.class.getClassLoader().getResourceAsStream("map.json")) {
+            if (in == null) throw new IllegalStateException("map.json is not on the classpath");
+            root = new ObjectMapper().readTree(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        JsonNode nodes = root.get("nodes");
+        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE;
+        long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+        for (JsonNode n : nodes) {
+            minX = Math.min(minX, n.get("x").asLong());
+            minY = Math.min(minY, n.get("y").asLong());
+            maxX = Math.max(maxX, n.get("x").asLong());
+            maxY = Math.max(maxY, n.get("y").asLong());
+        }
+        double scaleX = maxX == minX ? 0d : (double) MAX_X / (maxX - minX);
+        double scaleY = maxY == minY ? 0d : (double) MAX_Y / (maxY - minY);
+
+        RoadGraph.Builder builder = RoadGraph.builder();
+        for (JsonNode n : nodes) {
+            long x = Math.min(MAX_X, Math.max(0, Math.round((n.get("x").asLong() - minX) * scaleX)));
+            long y = Math.min(MAX_Y, Math.max(0, Math.round((n.get("y").asLong() - minY) * scaleY)));
+            builder.addNode(n.get("id").asLong(), x, y);
+        }
+        for (JsonNode e : root.get("edges")) {
+            int speed = e.hasNonNull("speed") ? e.get("speed").asInt() : DEFAULT_SPEED;
+            // MapService imports every edge as two-way
+            builder.addEdge(e.get("id").asLong(), e.get("name").asText(),
+                    e.get("startId").asLong(), e.get("endId").asLong(), speed, false);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Random points on the map: uniformly placed inside the normalized bounds.
+     */
+    static double[][] randomPoints(int count, long seed) {
+        Random rng = new Random(seed);
+        double[][] points = new double[count][];
+        for (int i = 0; i < count; i++) points[i] = new double[]{rng.nextDouble() * MAX_X, rng.nextDouble() * MAX_Y};
+        return points;
+    }
+}
@@ -0,0 +1,78 @@
+package com.rss.core.map.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Route searches as RouteService.searchRoute issues them: both ends of the snapped start edge as sources,
+ * both ends of the snapped destination edge as targets, ending at the destination projection.
+ * Trips are grouped by straight-line length around the simulation defaults
+ * {@code sim.trip.min-distance=300} and {@code sim.trip.max-distance=600}.
+ */
+@State(Scope.Benchmark)
+public class RoutingBenchmark {
+    private static final int QUERIES = 1024;
+
+    public enum TripLength {
+        SHORT(0, 300), MEDIUM(300, 600), LONG(600, Double.MAX_VALUE);
+
+        final double min;
+        final double max;
+
+        TripLength(double min, double max) {
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    @Param({"ASTAR", "ALT", "BIDIRECTIONAL", "CH"})
+    public RoutingEngine engine;
+
+    @Param({"SHORT", "MEDIUM", "LONG"})
+    public TripLength tripLength;
+
+    private PathFinder pathFinder;
+    private RouteQuery[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RoadGraph graph = BenchmarkMaps.load();
+        pathFinder = switch (engine) {
+            case ASTAR -> new AStarSearch(graph);
+            case ALT -> new AStarSearch(graph, Landmarks.select(graph, 8));
+            case BIDIRECTIONAL -> new BidirectionalAStarSearch(graph);
+            case CH -> ContractionHierarchy.build(graph);
+        };
+
+        EdgeSpatialIndex index = EdgeSpatialIndex.build(graph);
+        List<RouteQuery> selected = new ArrayList<>(QUERIES);
+        double[][] points = BenchmarkMaps.randomPoints(QUERIES * 64, 42);
+        for (int i = 0; i + 1 < points.length && selected.size() < QUERIES; i += 2) {
+            double length = Math.hypot(points[i][0] - points[i + 1][0], points[i][1] - points[i + 1][1]);
+            if (length < tripLength.min || length >= tripLength.max) continue;
+            EdgeSpatialIndex.Nearest start = index.nearest(points[i][0], points[i][1]);
+            EdgeSpatialIndex.Nearest destination = index.nearest(points[i + 1][0], points[i + 1][1]);
+            int target = destination.edge();
+            selected.add(new RouteQuery(
+                    new int[]{graph.edgeStart(start.edge()), graph.edgeEnd(start.edge())},
+                    new int[]{graph.edgeStart(target), graph.edgeEnd(target)},
+                    destination.x(), destination.y()));
+        }
+        queries = selected.toArray(RouteQuery[]::new);
+    }
+
+    @Benchmark
+    public GraphPath findPath() {
+        RouteQuery query = queries[next];
+        next = (next + 1) % queries.length;
+        return pathFinder.findPath(query);
+    }
+}
@@ -0,0 +1,69 @@
+package com.rss.core.map.graph;
+
+import com.rss.core.map.entity.Edge;
+import com.rss.core.map.entity.Node;
+import com.rss.core.map.model.EdgeProjectionPoint;
+import com.rss.core.map.service.RouteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.geo.Point;
+
+/**
+ * Snapping a point to the road network: the grid lookup behind RouteService.findClosestEdge, and
+ * RouteService.getProjectionPoint on a detached edge entity.
+ */
+@State(Scope.Benchmark)
+public class SnappingBenchmark {
+    private static final int POINTS = 4096;
+
+    private EdgeSpatialIndex index;
+    private RouteService routeService;
+    private Point[] points;
+    private Edge[] edges;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RoadGraph graph = BenchmarkMaps.load();
+        index = EdgeSpatialIndex.build(graph);
+        // getProjectionPoint is pure geometry and touches no collaborator
+        routeService = new RouteService(null, null);
+
+        double[][] coordinates = BenchmarkMaps.randomPoints(POINTS, 7);
+        points = new Point[POINTS];
+        edges = new Edge[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            points[i] = new Point(coordinates[i][0], coordinates[i][1]);
+            int e = index.nearest(coordinates[i][0], coordinates[i][1]).edge();
+            edges[i] = Edge.builder()
+                    .id(graph.edgeId(e))
+                    .name(graph.edgeName(e))
+                    .startNode(node(graph, graph.edgeStart(e)))
+                    .endNode(node(graph, graph.edgeEnd(e)))
+                    .speed(graph.edgeSpeed(e))
+                    .direction(graph.isOneWay(e) ? Edge.Direction.ONE_WAY : Edge.Direction.TWO_WAY)
+                    .build();
+        }
+    }
+
+    private static Node node(RoadGraph graph, int node) {
+        return Node.builder().id(graph.nodeId(node)).x((long) graph.x(node)).y((long) graph.y(node)).build();
+    }
+
+    @Benchmark
+    public EdgeSpatialIndex.Nearest findClosestEdge() {
+        Point point = points[next];
+        next = (next + 1) % POINTS;
+        return index.nearest(point.getX(), point.getY());
+    }
+
+    @Benchmark
+    public EdgeProjectionPoint getProjectionPoint() {
+        int i = next;
+        next = (next + 1) % POINTS;
+        return routeService.getProjectionPoint(points[i], edges[i]);
+    }
+}
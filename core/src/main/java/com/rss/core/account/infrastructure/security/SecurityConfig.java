@@ -39,6 +39,8 @@ public class SecurityConfig {
                                 "/api/account/visitors/**",
                                 "/ws/trip/**",
                                 "/ws/monitoring",
+                                "/ws/driver",
+                                "/api/drivers/location/batch",
                                 "/swagger-ui/**",
                                 "/v3/api-docs/**"
                         ).permitAll()
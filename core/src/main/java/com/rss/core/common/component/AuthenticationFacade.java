@@ -33,5 +33,15 @@ public class AuthenticationFacade {
         }
         return user.getRider().getId();
     }
+
+    public Long getAuthenticatedDriverId(String token) {
+        String email = jwtService.extractUsername(token);
+        var user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new AuthenticationCredentialsNotFoundException("Unauthenticated: email not found"));
+        if (user.getDriver() == null) {
+            throw new AuthenticationCredentialsNotFoundException("Unauthenticated: driver not found");
+        }
+        return user.getDriver().getId();
+    }
 }
 
@@ -0,0 +1,17 @@
+package com.rss.core.location;
+
+import java.util.Map;
+
+public interface DriverChannelInternalApi {
+
+    /**
+     * Sends a message to the driver over their telemetry WebSocket, as {type, ts, payload}.
+     * @return false if the driver has no open connection to this instance or the message could not be queued
+     */
+    boolean sendToDriver(Long driverId, String type, Map<String, Object> payload);
+
+    /**
+     * @return whether the driver has an open telemetry connection to this instance
+     */
+    boolean isConnected(Long driverId);
+}
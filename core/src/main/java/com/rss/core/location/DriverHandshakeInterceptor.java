@@ -0,0 +1,69 @@
+package com.rss.core.location;
+
+import com.rss.core.common.component.AuthenticationFacade;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Authenticates the driver once when the telemetry connection opens; frames on the open connection are not
+ * checked again.
+ */
+@Component
+@RequiredArgsConstructor
+public class DriverHandshakeInterceptor implements HandshakeInterceptor {
+    static final String DRIVER_ID_ATTRIBUTE = "driverId";
+
+    private final AuthenticationFacade authenticationFacade;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String token = extractToken(request);
+        if (token == null || token.isBlank()) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        try {
+            attributes.put(DRIVER_ID_ATTRIBUTE, authenticationFacade.getAuthenticatedDriverId(token));
+            return true;
+        } catch (RuntimeException ex) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Exception exception) {
+        // No-op
+    }
+
+    // Authorization header, or ?token=... for clients that cannot set headers on the upgrade request
+    private String extractToken(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.toLowerCase(Locale.ROOT).startsWith("bearer ")) {
+            return header.substring(7).trim();
+        }
+
+        String query = request.getURI().getRawQuery();
+        if (query == null) return null;
+        for (String part : query.split("&")) {
+            String[] kv = part.split("=", 2);
+            if (kv.length == 2 && "token".equals(URLDecoder.decode(kv[0], StandardCharsets.UTF_8))) {
+                return URLDecoder.decode(kv[1], StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+}
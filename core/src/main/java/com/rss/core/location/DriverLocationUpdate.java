@@ -0,0 +1,9 @@
+package com.rss.core.location;
+
+/**
+ * One entry of a batched location update from a fleet client, in map units.
+ *
+ * @param ts time of the position in epoch milliseconds; 0 when unknown
+ */
+public record DriverLocationUpdate(Long driverId, double x, double y, double degree, long ts) {
+}
@@ -0,0 +1,24 @@
+package com.rss.core.location;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class DriverWebSocketConfig implements WebSocketConfigurer {
+
+    private final DriverWebSocketHandler driverWebSocketHandler;
+    private final DriverHandshakeInterceptor driverHandshakeInterceptor;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(driverWebSocketHandler, "/ws/driver")
+                .addInterceptors(driverHandshakeInterceptor)
+                // Drivers are native clients; accept all origins like the other endpoints
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -0,0 +1,116 @@
+package com.rss.core.location;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Driver telemetry over one long-lived connection per driver. Drivers stream location frames
+ * {@code {"x":..,"y":..,"degree":..}}, each applied like an HTTP location update but without a request or a
+ * token check per frame. The same connection carries server-to-driver messages.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DriverWebSocketHandler extends TextWebSocketHandler implements DriverChannelInternalApi {
+    // Limits for messages queued to a slow driver before the connection is dropped
+    private static final int SEND_TIME_LIMIT_MILLIS = 5_000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 64 * 1024;
+
+    private final LocationService locationService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Sessions are decorated so messages from any thread are serialized per connection
+    private final Map<Long, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    record LocationFrame(double x, double y, double degree) {
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Long driverId = getDriverId(session);
+        if (driverId == null) {
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        var decorated = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MILLIS, SEND_BUFFER_LIMIT_BYTES);
+        WebSocketSession previous = sessions.put(driverId, decorated);
+        // A reconnecting driver replaces the connection it left behind
+        if (previous != null && previous.isOpen()) {
+            previous.close(CloseStatus.NORMAL.withReason("Replaced by a new connection"));
+        }
+        log.info("[DriverWS] session connected for driver: {}", driverId);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        Long driverId = getDriverId(session);
+        if (driverId == null) return;
+        // Only if still current, not when a replaced session closes after its successor registered
+        WebSocketSession current = sessions.get(driverId);
+        if (current instanceof ConcurrentWebSocketSessionDecorator decorated && decorated.getDelegate() == session) {
+            sessions.remove(driverId, current);
+            log.info("[DriverWS] session closed for driver: {}", driverId);
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        Long driverId = getDriverId(session);
+        LocationFrame frame;
+        try {
+            frame = objectMapper.readValue(message.getPayload(), LocationFrame.class);
+        } catch (JsonProcessingException e) {
+            log.debug("[DriverWS] ignoring malformed frame from driver {}", driverId);
+            return;
+        }
+        if (!Double.isFinite(frame.x()) || !Double.isFinite(frame.y()) || !Double.isFinite(frame.degree())) return;
+        try {
+            locationService.updateDriverLocation(driverId, frame.x(), frame.y(), frame.degree());
+        } catch (RuntimeException e) {
+            // Keep the connection; the next frame supersedes this one anyway
+            log.warn("[DriverWS] failed to update location of driver {}", driverId, e);
+        }
+    }
+
+    @Override
+    public boolean sendToDriver(Long driverId, String type, Map<String, Object> payload) {
+        WebSocketSession session = sessions.get(driverId);
+        if (session == null || !session.isOpen()) {
+            return false;
+        }
+        try {
+            var msg = Map.of(
+                    "type", type,
+                    "ts", System.currentTimeMillis(),
+                    "payload", payload
+            );
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(msg)));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("[DriverWS] failed to send {} to driver {}", type, driverId, e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isConnected(Long driverId) {
+        WebSocketSession session = sessions.get(driverId);
+        return session != null && session.isOpen();
+    }
+
+    private Long getDriverId(WebSocketSession session) {
+        return (Long) session.getAttributes().get(DriverHandshakeInterceptor.DRIVER_ID_ATTRIBUTE);
+    }
+}
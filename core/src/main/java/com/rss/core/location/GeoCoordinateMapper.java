@@ -70,6 +70,13 @@ public class GeoCoordinateMapper {
         return units * metersPerUnit;
     }
 
+    /**
+     * Inverse of {@link #unitsToMeters(double)}, for distances returned by Redis GEO queries.
+     */
+    public double metersToUnits(double meters) {
+        return meters / metersPerUnit;
+    }
+
     private static double clamp(double v, double min, double max) {
         return v < min ? min : (Math.min(v, max));
     }
@@ -1,16 +1,37 @@
 package com.rss.core.location;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rss.core.common.annotation.CurrentDriverId;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/api/drivers")
 @RequiredArgsConstructor
 public class LocationController {
+    private static final String FLEET_TOKEN_HEADER = "X-Fleet-Token";
+    private static final TypeReference<List<DriverLocationUpdate>> BATCH = new TypeReference<>() {
+    };
+
     private final LocationService locationService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${location.fleet.token:}")
+    private String fleetToken;
+
+    @Value("${location.batch.max-bytes:2097152}")
+    private int maxBatchBytes;
 
     @PostMapping(value = "/location/update")
     public ResponseEntity<String> updateDriverLocation(
@@ -22,6 +43,42 @@ public class LocationController {
         return ResponseEntity.ok("driver location updated.");
     }
 
+    /**
+     * Updates the positions of many drivers at once, for fleet clients reporting on behalf of their drivers.
+     * Requires the configured fleet token, disabled when none is set. The body is only read once the token
+     * matched, and never beyond the configured size limit.
+     */
+    @PostMapping(value = "/location/batch")
+    public ResponseEntity<String> updateDriverLocations(
+            @RequestHeader(value = FLEET_TOKEN_HEADER, required = false) String token,
+            HttpServletRequest request) throws IOException {
+        if (fleetToken.isBlank())
+            throw new AccessDeniedException("Batch location updates are disabled");
+        if (token == null || !MessageDigest.isEqual(
+                fleetToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8)))
+            throw new AccessDeniedException("Invalid fleet token");
+        int updated = locationService.updateDriverLocations(readBatch(request));
+        return ResponseEntity.ok(updated + " driver locations updated.");
+    }
+
+    private List<DriverLocationUpdate> readBatch(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxBatchBytes)
+            throw new IllegalArgumentException("Location batch exceeds " + maxBatchBytes + " bytes");
+        // Content-Length may be absent, so also stop reading one byte past the limit
+        byte[] body = request.getInputStream().readNBytes(maxBatchBytes + 1);
+        if (body.length > maxBatchBytes)
+            throw new IllegalArgumentException("Location batch exceeds " + maxBatchBytes + " bytes");
+        List<DriverLocationUpdate> updates;
+        try {
+            updates = objectMapper.readValue(body, BATCH);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed location batch", e);
+        }
+        if (updates == null)
+            throw new IllegalArgumentException("Location batch is required");
+        return updates;
+    }
+
     @GetMapping("/{id}/location")
     public DriverLocation getDriverLocation(@PathVariable Long id) {
         return locationService.getDriverLocation(id);
@@ -1,5 +1,8 @@
 package com.rss.core.location;
 
+import com.rss.core.map.RoadPosition;
+
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -10,6 +13,12 @@ public interface LocationInternalApi {
      */
     DriverLocation getDriverLocation(Long driverId);
 
+    /**
+     * Match the driver's stored location to the road, starting from the driver's previous match; returns null
+     * if the driver has no location, it is off the map or the road graph is not loaded yet.
+     */
+    RoadPosition getRoadPosition(Long driverId);
+
     /**
      * Find nearby drivers.
      * @param x X coordinate
@@ -21,11 +30,13 @@ public interface LocationInternalApi {
     Set<Long> findDriversWithinRadius(double x, double y, double radiusUnits);
 
     /**
-     * Find nearby drivers by starting with a default radius and progressively increasing it
-     * until drivers are found or a maximum threshold is reached.
-     * Implementation should return an empty set if none are found within the threshold.
+     * Find the drivers closest to a point by straight-line distance, in a single Redis query.
+     * @param k maximum number of drivers returned
+     * @param maxRadiusUnits search radius in MAP UNITS
+     * @return up to k drivers within the radius, nearest first, with their positions and distances;
+     * empty if k or the radius is not positive
      */
-    Set<Long> findNearbyDrivers(double x, double y);
+    List<NearbyDriver> findNearestDrivers(double x, double y, int k, double maxRadiusUnits);
 
    /**
     * Get the locations of all available drivers
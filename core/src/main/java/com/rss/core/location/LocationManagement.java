@@ -1,36 +1,172 @@
 package com.rss.core.location;
 
+import java.time.Duration;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rss.core.map.MapInternalApi;
+import com.rss.core.map.RoadPosition;
+import com.rss.core.map.TrafficInternalApi;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.data.redis.domain.geo.GeoReference;
 import org.springframework.data.redis.domain.geo.Metrics;
 import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoSearchCommandArgs;
+import org.springframework.data.geo.GeoResult;
 import org.springframework.data.geo.GeoResults;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class LocationManagement implements LocationService, LocationInternalApi {
     private final StringRedisTemplate stringRedisTemplate;
     private final GeoCoordinateMapper geoCoordinateMapper;
+    private final MapInternalApi mapInternalApi;
+    private final TrafficInternalApi trafficInternalApi;
+
+    // Drivers not matched for this long start over with a search of the whole map
+    private static final Duration ROAD_POSITION_TTL = Duration.ofMinutes(10);
+
+    // Last road match per driver, the starting point for matching the next position
+    private final Cache<Long, RoadPosition> roadPositions = Caffeine.newBuilder()
+            .expireAfterAccess(ROAD_POSITION_TTL)
+            .build();
+
+    // Latest position per driver not yet matched for live traffic; writes only replace an entry
+    private final Map<Long, Point> pendingMatches = new ConcurrentHashMap<>();
 
     private static final String DRIVER_LOCATION_KEY = "driver:location";
-    private static final String DRIVER_DEGREE_KEY = "driver:degree";
+    // Hash of driver id -> "degree,lastSeenMillis"
+    private static final String DRIVER_STATE_KEY = "driver:state";
+
+    // Position and state in one round trip, applied atomically so readers never see one without the other
+    private static final RedisScript<Long> UPDATE_LOCATION = RedisScript.of("""
+            redis.call('GEOADD', KEYS[1], ARGV[1], ARGV[2], ARGV[3])
+            redis.call('HSET', KEYS[2], ARGV[3], ARGV[4])
+            return 1
+            """, Long.class);
+
+    // Largest accepted batch of location updates
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    // Ids per GEOPOS/HMGET command of a snapshot, so no single command holds Redis up for the whole fleet
+    private static final int SNAPSHOT_CHUNK = 1000;
 
     @Override
     public void updateDriverLocation(Long driverId, double x, double y, double degree) {
         Point redisPoint = geoCoordinateMapper.toRedisPoint(x, y);
-        stringRedisTemplate.opsForGeo().add(DRIVER_LOCATION_KEY, redisPoint, driverId.toString());
-        stringRedisTemplate.opsForValue().set(DEGREE_KEY(driverId), Double.toString(normalizeDegree(degree)));
+        String state = normalizeDegree(degree) + "," + System.currentTimeMillis();
+        stringRedisTemplate.execute(UPDATE_LOCATION, List.of(DRIVER_LOCATION_KEY, DRIVER_STATE_KEY),
+                Double.toString(redisPoint.getX()), Double.toString(redisPoint.getY()), driverId.toString(), state);
+
+        queueRoadMatch(driverId, x, y);
+    }
+
+    @Override
+    public int updateDriverLocations(List<DriverLocationUpdate> updates) {
+        if (updates.size() > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException("Batch holds more than " + MAX_BATCH_SIZE + " updates");
+
+        // Client clocks are not trusted ahead of ours: a future ts would pin the driver's state
+        long now = System.currentTimeMillis();
+        Map<Long, DriverLocationUpdate> latest = new HashMap<>();
+        for (DriverLocationUpdate update : updates) {
+            if (update == null || update.driverId() == null || !Double.isFinite(update.x())
+                    || !Double.isFinite(update.y()) || !Double.isFinite(update.degree()))
+                continue;
+            DriverLocationUpdate clamped = update.ts() > 0 && update.ts() <= now ? update
+                    : new DriverLocationUpdate(update.driverId(), update.x(), update.y(), update.degree(), now);
+            latest.merge(update.driverId(), clamped, (a, b) -> b.ts() >= a.ts() ? b : a);
+        }
+        if (latest.isEmpty()) return 0;
+
+        // Entries older than what is stored, from either update path, are stale and dropped
+        List<Long> driverIds = new ArrayList<>(latest.keySet());
+        List<Object> stored = stringRedisTemplate.opsForHash()
+                .multiGet(DRIVER_STATE_KEY, driverIds.stream().<Object>map(Object::toString).toList());
+        for (int i = 0; i < driverIds.size(); i++) {
+            Long driverId = driverIds.get(i);
+            if (latest.get(driverId).ts() < parseLastSeen((String) stored.get(i))) latest.remove(driverId);
+        }
+        if (latest.isEmpty()) return 0;
+
+        Map<String, Point> points = new HashMap<>(latest.size() * 4 / 3 + 1);
+        Map<String, String> states = new HashMap<>(latest.size() * 4 / 3 + 1);
+        for (DriverLocationUpdate update : latest.values()) {
+            String member = update.driverId().toString();
+            points.put(member, geoCoordinateMapper.toRedisPoint(update.x(), update.y()));
+            states.put(member, normalizeDegree(update.degree()) + "," + update.ts());
+        }
+
+        // One multi-member GEOADD and one multi-field HSET, pipelined into a single round trip
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.geoAdd(DRIVER_LOCATION_KEY, points);
+            redis.hMSet(DRIVER_STATE_KEY, states);
+            return null;
+        });
+
+        for (DriverLocationUpdate update : latest.values()) {
+            queueRoadMatch(update.driverId(), update.x(), update.y());
+        }
+        return latest.size();
+    }
+
+    // Road matching stays off the write path, and is only done continuously for live traffic
+    private void queueRoadMatch(Long driverId, double x, double y) {
+        if (trafficInternalApi.isEnabled()) pendingMatches.put(driverId, new Point(x, y));
+    }
+
+    /**
+     * Matches the positions written since the last run to the road and feeds them to live traffic.
+     */
+    @Scheduled(fixedDelayString = "${location.road-match.interval-ms:250}")
+    public void matchPendingPositions() {
+        for (Long driverId : pendingMatches.keySet()) {
+            Point point = pendingMatches.remove(driverId);
+            if (point == null) continue;
+            try {
+                RoadPosition position = matchToRoad(driverId, point.getX(), point.getY());
+                if (position != null) trafficInternalApi.recordDriverPosition(driverId, position);
+            } catch (RuntimeException e) {
+                log.debug("Could not match driver {} to the road: {}", driverId, e.getMessage());
+            }
+        }
+    }
+
+    // Starts from the driver's last match; null off the map or while the road graph is not loaded yet
+    private RoadPosition matchToRoad(Long driverId, double x, double y) {
+        RoadPosition position;
+        try {
+            position = mapInternalApi.matchToRoad(x, y, roadPositions.getIfPresent(driverId));
+        } catch (IllegalStateException e) {
+            return null;
+        }
+        if (position == null) roadPositions.invalidate(driverId);
+        else roadPositions.put(driverId, position);
+        return position;
+    }
+
+    @Override
+    public RoadPosition getRoadPosition(Long driverId) {
+        DriverLocation location = getDriverLocation(driverId);
+        return location == null ? null : matchToRoad(driverId, location.getX(), location.getY());
     }
 
     @Override
@@ -39,10 +175,9 @@ public class LocationManagement implements LocationService, LocationInternalApi
         if (geoPoint == null) return null;
         Point mapPoint = geoCoordinateMapper.fromRedisPoint(geoPoint);
 
-        String d = stringRedisTemplate.opsForValue().get(DEGREE_KEY(driverId));
-        double degree = d == null ? 0.0 : parseDegree(d);
+        Object state = stringRedisTemplate.opsForHash().get(DRIVER_STATE_KEY, driverId.toString());
 
-        return new DriverLocation(mapPoint.getX(), mapPoint.getY(), degree);
+        return new DriverLocation(mapPoint.getX(), mapPoint.getY(), parseDegree((String) state));
     }
 
     @Override
@@ -69,67 +204,84 @@ public class LocationManagement implements LocationService, LocationInternalApi
     }
 
     @Override
-    public Set<Long> findNearbyDrivers(double x, double y) {
-        double startRadiusUnits = 50;
-        double maxRadiusUnits = 5000;
-        double growthFactor = 2.0;
+    public List<NearbyDriver> findNearestDrivers(double x, double y, int k, double maxRadiusUnits) {
+        if (k <= 0 || !(maxRadiusUnits > 0) || Double.isInfinite(maxRadiusUnits)
+                || !Double.isFinite(x) || !Double.isFinite(y))
+            return List.of();
 
-        if (Double.isNaN(x) || Double.isNaN(y) || Double.isInfinite(x) || Double.isInfinite(y))
-            return Set.of();
+        Point center = geoCoordinateMapper.toRedisPoint(x, y);
+        Distance radius = new Distance(geoCoordinateMapper.unitsToMeters(maxRadiusUnits), Metrics.METERS);
+        // GEOSEARCH ... BYRADIUS ... ASC COUNT k WITHCOORD WITHDIST
+        GeoSearchCommandArgs args = GeoSearchCommandArgs.newGeoSearchArgs()
+                .includeCoordinates()
+                .includeDistance()
+                .sortAscending()
+                .limit(k);
 
-        double radius = startRadiusUnits;
-        while (radius > 0 && radius <= maxRadiusUnits) {
-            Set<Long> found = findDriversWithinRadius(x, y, radius);
-            if (!found.isEmpty()) {
-                return found;
-            }
-            // Increase radius
-            double next = radius * growthFactor;
-            if (next == radius) { // guard against no change due to precision
-                next += 1.0;
+        GeoResults<GeoLocation<String>> results = stringRedisTemplate.opsForGeo().search(
+                DRIVER_LOCATION_KEY,
+                GeoReference.fromCoordinate(center),
+                radius,
+                args
+        );
+
+        if (results == null || results.getContent().isEmpty())
+            return List.of();
+
+        List<NearbyDriver> nearest = new ArrayList<>(results.getContent().size());
+        for (GeoResult<GeoLocation<String>> result : results.getContent()) {
+            try {
+                Long driverId = Long.valueOf(result.getContent().getName());
+                Point mapPoint = geoCoordinateMapper.fromRedisPoint(result.getContent().getPoint());
+                double distance = geoCoordinateMapper.metersToUnits(result.getDistance().getValue());
+                nearest.add(new NearbyDriver(driverId, mapPoint.getX(), mapPoint.getY(), distance));
+            } catch (NumberFormatException ignored) {
+                // skip invalid IDs
             }
-            radius = next;
         }
-        return Set.of();
+        return nearest;
     }
 
     @Override
     public Map<Long, DriverLocation> getAllDriverLocations() {
-        // Get all driver IDs
-        Set<String> memberIds = stringRedisTemplate.opsForZSet()
-                .range(DRIVER_LOCATION_KEY, 0, -1);
-
-        if (memberIds == null || memberIds.isEmpty()) {
+        Set<String> members = stringRedisTemplate.opsForZSet().range(DRIVER_LOCATION_KEY, 0, -1);
+        if (members == null || members.isEmpty()) {
             return Map.of();
         }
 
-        // Get all positions in one call
-        List<Point> positions = stringRedisTemplate.opsForGeo()
-                .position(DRIVER_LOCATION_KEY, memberIds.toArray(String[]::new));
-
-        if (positions == null || positions.isEmpty()) {
-            return Map.of();
+        List<String[]> chunks = new ArrayList<>(members.size() / SNAPSHOT_CHUNK + 1);
+        List<String> ids = new ArrayList<>(members);
+        for (int from = 0; from < ids.size(); from += SNAPSHOT_CHUNK) {
+            chunks.add(ids.subList(from, Math.min(from + SNAPSHOT_CHUNK, ids.size())).toArray(String[]::new));
         }
 
-        // Zip IDs + positions
-        Iterator<String> idIterator = memberIds.iterator();
-        Iterator<Point> posIterator = positions.iterator();
-
-        Map<Long, DriverLocation> result = new HashMap<>(memberIds.size());
+        // Plain commands in one pipeline: a single round trip, and other clients are served between chunks
+        List<Object> replies = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (String[] chunk : chunks) {
+                redis.geoPos(DRIVER_LOCATION_KEY, chunk);
+                redis.hMGet(DRIVER_STATE_KEY, chunk);
+            }
+            return null;
+        });
 
-        while (idIterator.hasNext() && posIterator.hasNext()) {
-            String id = idIterator.next();
-            Point geoPoint = posIterator.next();
-            if (geoPoint == null) continue;
+        Map<Long, DriverLocation> result = new HashMap<>(ids.size() * 4 / 3 + 1);
+        for (int c = 0; c < chunks.size(); c++) {
+            String[] chunk = chunks.get(c);
+            List<?> positions = (List<?>) replies.get(2 * c);
+            List<?> states = (List<?>) replies.get(2 * c + 1);
+            for (int i = 0; i < chunk.length; i++) {
+                // Drivers removed since the ZRANGE have no position left
+                if (!(positions.get(i) instanceof Point geoPoint)) continue;
 
-            try {
-                Long driverId = Long.parseLong(id);
-                Point mapPoint = geoCoordinateMapper.fromRedisPoint(geoPoint);
-                String d = stringRedisTemplate.opsForValue().get(DEGREE_KEY(driverId));
-                double degree = d == null ? 0.0 : parseDegree(d);
-                result.put(driverId, new DriverLocation(mapPoint.getX(), mapPoint.getY(), degree));
-            } catch (NumberFormatException ignored) {
-                // skip invalid IDs
+                try {
+                    Long driverId = Long.parseLong(chunk[i]);
+                    Point mapPoint = geoCoordinateMapper.fromRedisPoint(geoPoint);
+                    double degree = parseDegree((String) states.get(i));
+                    result.put(driverId, new DriverLocation(mapPoint.getX(), mapPoint.getY(), degree));
+                } catch (NumberFormatException ignored) {
+                    // skip invalid IDs
+                }
             }
         }
 
@@ -137,24 +289,34 @@ public class LocationManagement implements LocationService, LocationInternalApi
     }
 
 
-    private static String DEGREE_KEY(Long driverId) {
-        return DRIVER_DEGREE_KEY + ":" + driverId;
-    }
-
     private static double normalizeDegree(double deg) {
         double d = deg % 360.0;
         if (d < 0) d += 360.0;
         return d;
     }
 
-    private static double parseDegree(String s) {
+    // Degree from a "degree,lastSeenMillis" state, 0 if absent
+    private static double parseDegree(String state) {
+        if (state == null) return 0.0;
+        int comma = state.indexOf(',');
         try {
-            return normalizeDegree(Double.parseDouble(s));
+            return normalizeDegree(Double.parseDouble(comma < 0 ? state : state.substring(0, comma)));
         } catch (NumberFormatException e) {
             return 0.0;
         }
     }
 
+    // Time from a "degree,lastSeenMillis" state, 0 if absent
+    private static long parseLastSeen(String state) {
+        if (state == null) return 0;
+        int comma = state.indexOf(',');
+        try {
+            return comma < 0 ? 0 : Long.parseLong(state.substring(comma + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Retrieve driver location as raw Redis GEO point (lon,lat)
      */
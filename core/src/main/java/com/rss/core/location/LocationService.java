@@ -1,5 +1,6 @@
 package com.rss.core.location;
 
+import java.util.List;
 import java.util.Set;
 
 public interface LocationService {
@@ -9,6 +10,15 @@ public interface LocationService {
      */
     void updateDriverLocation(Long driverId, double x, double y, double degree);
 
+    /**
+     * Store a batch of driver positions in one Redis round trip. Of several entries for the same driver only
+     * the latest counts; entries without a driver id or with non-finite coordinates are skipped. A ts in the
+     * future or missing is replaced by the server time, and an entry older than the driver's stored location,
+     * from an earlier batch or a single update, is dropped.
+     * @return number of drivers updated
+     */
+    int updateDriverLocations(List<DriverLocationUpdate> updates);
+
     /**
      * Retrieve driver location in map unit with degree; returns null if absent.
      */
@@ -23,11 +33,4 @@ public interface LocationService {
      * Validation: radiusUnits must be positive and not NaN/Infinite; otherwise empty set is returned.
      */
     Set<Long> findDriversWithinRadius(double x, double y, double radiusUnits);
-
-    /**
-     * Find nearby drivers by starting with a default radius and progressively increasing it
-     * until drivers are found or a maximum threshold is reached.
-     * Implementation should return an empty set if none are found within the threshold.
-     */
-    Set<Long> findNearbyDrivers(double x, double y);
 }
@@ -0,0 +1,7 @@
+package com.rss.core.location;
+
+/**
+ * A driver found around a point, with position and straight-line distance in map units.
+ */
+public record NearbyDriver(Long driverId, double x, double y, double distance) {
+}
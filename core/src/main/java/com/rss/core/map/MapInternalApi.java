@@ -3,8 +3,15 @@ package com.rss.core.map;
 import com.rss.core.map.model.EdgeProjectionPoint;
 import org.springframework.data.geo.Point;
 
+import java.util.List;
+
 public interface MapInternalApi {
 
+    /**
+     * @return version of the map that routing and snapping currently run on
+     */
+    String getMapVersion();
+
     /**
      * Finds the closest point on any edge to the given point.
      *
@@ -13,6 +20,26 @@ public interface MapInternalApi {
      */
     EdgeProjectionPoint findClosestEdge(Point point);
 
+    /**
+     * Finds the closest point on any edge to the given point, without building edge details.
+     *
+     * @param point the reference point
+     * @return the projection of the point onto its closest edge, or null if the map has no edges
+     */
+    Point findProjectionPoint(Point point);
+
+    /**
+     * Matches a moving position to the road network incrementally: the previous edge and the edges sharing
+     * one of its nodes are checked first, and the closest edge of the whole map is searched only when the
+     * position is not near any of them.
+     *
+     * @param x the x coordinate of the position
+     * @param y the y coordinate of the position
+     * @param previous the last match of the same moving object, or null
+     * @return the matched position, or null if the map has no edges
+     */
+    RoadPosition matchToRoad(double x, double y, RoadPosition previous);
+
     /**
      * Checks if the actual point is either exactly at the expected point,
      * or at the projection of the expected point onto an edge.
@@ -22,4 +49,35 @@ public interface MapInternalApi {
      * @return true if actual is at expected or at its projection on an edge, false otherwise
      */
     boolean isAtExpectedOrProjection(Point actual, Point expected);
+
+    /**
+     * Same check as {@link #isAtExpectedOrProjection(Point, Point)} against a projection snapped earlier with
+     * {@link #findProjectionPoint(Point)}, so no spatial lookup is needed.
+     *
+     * @param actual the point to check
+     * @param expected the reference point
+     * @param expectedProjection the projection of expected onto its closest edge, or null to snap it now
+     * @return true if actual is at expected or at its projection, false otherwise
+     */
+    boolean isAtExpectedOrProjection(Point actual, Point expected, Point expectedProjection);
+
+    /**
+     * Computes road distances and travel times from every origin to every destination in one call.
+     * Each point is snapped to its closest edge first.
+     *
+     * @param origins the points to start from
+     * @param destinations the points to reach
+     * @return the matrix indexed by origin and destination position in the given lists
+     */
+    TravelMatrix computeTravelMatrix(List<Point> origins, List<Point> destinations);
+
+    /**
+     * Computes the travel time, on live traffic when enabled, from each origin to a single destination,
+     * e.g. from candidate drivers to a pickup point. Each point is snapped to its closest edge first.
+     *
+     * @param origins the points to start from
+     * @param destination the point to reach
+     * @return travel time in seconds per origin, in list order; infinite where the destination cannot be reached
+     */
+    double[] computeTravelTimesTo(List<Point> origins, Point destination);
 }
@@ -0,0 +1,13 @@
+package com.rss.core.map;
+
+/**
+ * A position matched to the road network.
+ *
+ * @param edgeId id of the matched edge
+ * @param t position along the edge from its start node, in [0, 1]
+ * @param x x coordinate of the matched point on the edge
+ * @param y y coordinate of the matched point on the edge
+ * @param distance distance from the original position to the matched point, in map units
+ */
+public record RoadPosition(long edgeId, double t, double x, double y, double distance) {
+}
@@ -0,0 +1,18 @@
+package com.rss.core.map;
+
+public interface TrafficInternalApi {
+
+    /**
+     * @return true if live traffic is enabled, so driver positions are worth matching to the road and recording
+     */
+    boolean isEnabled();
+
+    /**
+     * Feeds a driver position into the live traffic model. Returns immediately: positions are queued and
+     * aggregated in the background, and dropped while the queue is full or traffic is disabled.
+     *
+     * @param driverId the driver the position belongs to
+     * @param position the position matched with {@link MapInternalApi#matchToRoad}
+     */
+    void recordDriverPosition(long driverId, RoadPosition position);
+}
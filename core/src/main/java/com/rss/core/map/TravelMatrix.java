@@ -0,0 +1,20 @@
+package com.rss.core.map;
+
+/**
+ * Road distances (map units) and travel times at the speed limit (seconds) between a list of origins and a list
+ * of destinations. Unreachable pairs have infinite distance and duration.
+ */
+public record TravelMatrix(int origins, int destinations, double[] distances, double[] durations) {
+
+    public double distance(int origin, int destination) {
+        return distances[origin * destinations + destination];
+    }
+
+    public double duration(int origin, int destination) {
+        return durations[origin * destinations + destination];
+    }
+
+    public boolean isReachable(int origin, int destination) {
+        return distance(origin, destination) != Double.POSITIVE_INFINITY;
+    }
+}
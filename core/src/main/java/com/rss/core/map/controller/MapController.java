@@ -1,23 +1,79 @@
 package com.rss.core.map.controller;
 
+import com.rss.core.map.dto.MapReloadResponse;
+import com.rss.core.map.service.MapPayload;
 import com.rss.core.map.service.MapService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirements;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 
 @RestController
 @SecurityRequirements()
 @RequestMapping("/api/map")
 @RequiredArgsConstructor
 public class MapController {
+    private static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
     private final MapService mapService;
 
+    @Value("${map.admin.token:}")
+    private String adminToken;
+
+    /**
+     * Serves the pre-serialized map, gzipped when the client accepts it. Clients revalidate with the ETag
+     * and get a 304 without a body while the map version is unchanged.
+     */
     @GetMapping
-    public Map<String, Object> getMap() {
-        return mapService.getCurrentMap();
+    public ResponseEntity<byte[]> getMap(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        MapPayload payload = mapService.getMapPayload();
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        String etag = gzip ? payload.gzipEtag() : payload.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.gzip());
+        }
+        return response.body(payload.json());
+    }
+
+    /**
+     * Replaces the map with the JSON body without restarting; routing switches to the new version once it
+     * is fully built. Requires the configured admin token, disabled when none is set.
+     */
+    @PostMapping(value = "/reload", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public MapReloadResponse reloadMap(
+            @RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token,
+            InputStream body) throws IOException {
+        if (adminToken.isBlank())
+            throw new AccessDeniedException("Map reload is disabled");
+        if (token == null || !MessageDigest.isEqual(
+                adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8)))
+            throw new AccessDeniedException("Invalid admin token");
+        return mapService.reloadMap(body);
     }
 }
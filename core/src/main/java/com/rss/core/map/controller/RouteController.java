@@ -1,24 +1,41 @@
 package com.rss.core.map.controller;
 
+import com.rss.core.map.dto.EncodedRoute;
+import com.rss.core.map.dto.MatrixRequest;
+import com.rss.core.map.dto.MatrixResponse;
 import com.rss.core.map.dto.RouteRequest;
 import com.rss.core.map.dto.RouteResponse;
 import com.rss.core.map.dto.SimRouteRequest;
 import com.rss.core.map.model.EdgeProjectionPoint;
 import com.rss.core.map.service.RouteService;
+import com.rss.core.map.service.RoutingStats;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.geo.Point;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/map")
 @RequiredArgsConstructor
 public class RouteController {
     private final RouteService routeService;
+    private final RoutingStats routingStats;
 
+    /**
+     * @param format {@code polyline} to receive the route as an {@link EncodedRoute} instead of a step list
+     */
     @PostMapping(value = "/route")
-    public ResponseEntity<RouteResponse> getRoute(@RequestBody RouteRequest request) {
-        return ResponseEntity.ok(routeService.getRoute(request));
+    public ResponseEntity<RouteResponse> getRoute(@RequestBody RouteRequest request,
+                                                  @RequestParam(required = false) String format) {
+        RouteResponse response = routeService.getRoute(request);
+        if (format == null) return ResponseEntity.ok(response);
+        if (!EncodedRoute.FORMAT.equals(format))
+            throw new IllegalArgumentException("Unsupported route format: " + format);
+        response.setEncodedRoute(EncodedRoute.toEncodedRoute(response.getRoute()));
+        response.setRoute(null);
+        return ResponseEntity.ok(response);
     }
 
     @PostMapping(value = "/simRoute")
@@ -30,4 +47,17 @@ public class RouteController {
     public ResponseEntity<EdgeProjectionPoint> getClosestEdge(@RequestBody Point point) {
         return ResponseEntity.ok(routeService.findClosestEdge(point));
     }
+
+    @PostMapping("/matrix")
+    public ResponseEntity<MatrixResponse> getMatrix(@RequestBody MatrixRequest request) {
+        if (request.getOrigins() == null || request.getDestinations() == null)
+            throw new IllegalArgumentException("Origins and destinations are required");
+        return ResponseEntity.ok(MatrixResponse.toMatrixResponse(
+                routeService.computeTravelMatrix(request.getOrigins(), request.getDestinations())));
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return routingStats.snapshot();
+    }
 }
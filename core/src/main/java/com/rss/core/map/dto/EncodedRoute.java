@@ -0,0 +1,153 @@
+package com.rss.core.map.dto;
+
+import com.rss.core.map.model.RouteStep;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compact form of a route, served for {@code POST /api/map/route?format=polyline}.
+ * <p>
+ * {@code steps} is base64url (no padding) of a stream of unsigned LEB128 varints; signed values are zigzag
+ * encoded:
+ * <pre>
+ * count
+ * count x (zigzag dx, zigzag dy)          coordinates as deltas from the previous step, the first from (0, 0)
+ * runs, runs x (zigzag speed, length)     speeds, run-length encoded
+ * runs, runs x (instruction + 1, length)  indices into {@code instructions}, run-length encoded, 0 for null
+ * </pre>
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EncodedRoute {
+    public static final String FORMAT = "polyline";
+
+    private String steps;
+    private List<String> instructions;
+
+    public static EncodedRoute toEncodedRoute(List<RouteStep> route) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + route.size() * 4);
+        writeVarint(out, route.size());
+
+        long x = 0, y = 0;
+        for (RouteStep step : route) {
+            writeVarint(out, zigzag(step.getX() - x));
+            writeVarint(out, zigzag(step.getY() - y));
+            x = step.getX();
+            y = step.getY();
+        }
+
+        List<Long> speedRuns = new ArrayList<>();
+        for (int i = 0; i < route.size(); ) {
+            int speed = route.get(i).getSpeed();
+            int end = i + 1;
+            while (end < route.size() && route.get(end).getSpeed() == speed) end++;
+            speedRuns.add(zigzag(speed));
+            speedRuns.add((long) (end - i));
+            i = end;
+        }
+        writeVarint(out, speedRuns.size() / 2);
+        for (long value : speedRuns) writeVarint(out, value);
+
+        List<String> instructions = new ArrayList<>();
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<Long> instructionRuns = new ArrayList<>();
+        for (int i = 0; i < route.size(); ) {
+            String instruction = route.get(i).getInstruction();
+            int end = i + 1;
+            while (end < route.size() && Objects.equals(route.get(end).getInstruction(), instruction)) end++;
+            int index = 0;
+            if (instruction != null) {
+                index = dictionary.computeIfAbsent(instruction, k -> {
+                    instructions.add(k);
+                    return instructions.size();
+                });
+            }
+            instructionRuns.add((long) index);
+            instructionRuns.add((long) (end - i));
+            i = end;
+        }
+        writeVarint(out, instructionRuns.size() / 2);
+        for (long value : instructionRuns) writeVarint(out, value);
+
+        return new EncodedRoute(Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray()), instructions);
+    }
+
+    public List<RouteStep> toRouteSteps() {
+        Reader in = new Reader(Base64.getUrlDecoder().decode(steps));
+        int count = (int) in.varint();
+        long[] xs = new long[count];
+        long[] ys = new long[count];
+        long x = 0, y = 0;
+        for (int i = 0; i < count; i++) {
+            x += unzigzag(in.varint());
+            y += unzigzag(in.varint());
+            xs[i] = x;
+            ys[i] = y;
+        }
+
+        int[] speeds = new int[count];
+        for (int runs = (int) in.varint(), i = 0; runs > 0; runs--) {
+            int speed = (int) unzigzag(in.varint());
+            for (long n = in.varint(); n > 0; n--) speeds[i++] = speed;
+        }
+
+        List<RouteStep> route = new ArrayList<>(count);
+        for (int runs = (int) in.varint(), i = 0; runs > 0; runs--) {
+            int index = (int) in.varint();
+            String instruction = index == 0 ? null : instructions.get(index - 1);
+            for (long n = in.varint(); n > 0; n--, i++) {
+                route.add(new RouteStep(xs[i], ys[i], speeds[i], instruction));
+            }
+        }
+        return route;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= bytes.length)
+                    throw new IllegalArgumentException("Truncated encoded route");
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint in encoded route");
+        }
+    }
+}
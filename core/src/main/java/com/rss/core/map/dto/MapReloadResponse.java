@@ -0,0 +1,19 @@
+package com.rss.core.map.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MapReloadResponse {
+    private String previousVersion;
+    private String version;
+    private int nodes;
+    private int edges;
+    private int polygons;
+    private long durationMs;
+}
@@ -0,0 +1,16 @@
+package com.rss.core.map.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.geo.Point;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MatrixRequest {
+    private List<Point> origins;
+    private List<Point> destinations;
+}
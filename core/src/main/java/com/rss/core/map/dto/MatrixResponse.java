@@ -0,0 +1,37 @@
+package com.rss.core.map.dto;
+
+import com.rss.core.map.TravelMatrix;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MatrixResponse {
+    // Indexed [origin][destination]; null where the destination cannot be reached
+    private List<List<Double>> distances;
+    private List<List<Double>> durations;
+
+    public static MatrixResponse toMatrixResponse(TravelMatrix matrix) {
+        List<List<Double>> distances = new ArrayList<>(matrix.origins());
+        List<List<Double>> durations = new ArrayList<>(matrix.origins());
+        for (int i = 0; i < matrix.origins(); i++) {
+            List<Double> distanceRow = new ArrayList<>(matrix.destinations());
+            List<Double> durationRow = new ArrayList<>(matrix.destinations());
+            for (int j = 0; j < matrix.destinations(); j++) {
+                boolean reachable = matrix.isReachable(i, j);
+                distanceRow.add(reachable ? matrix.distance(i, j) : null);
+                durationRow.add(reachable ? matrix.duration(i, j) : null);
+            }
+            distances.add(distanceRow);
+            durations.add(durationRow);
+        }
+        return new MatrixResponse(distances, durations);
+    }
+}
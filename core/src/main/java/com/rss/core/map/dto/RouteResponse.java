@@ -1,5 +1,6 @@
 package com.rss.core.map.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.rss.core.map.model.EdgeProjectionPoint;
 import com.rss.core.map.model.RouteStep;
 import lombok.AllArgsConstructor;
@@ -17,5 +18,11 @@ public class RouteResponse {
     // TODO: implement Route Response dto.
     private EdgeProjectionPoint startPointProjection;
     private EdgeProjectionPoint destinationPointProjection;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<RouteStep> route;
+    // Set instead of route when the compact format is requested
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private EncodedRoute encodedRoute;
+    // The search ran out of budget: the route follows roads part of the way, then goes straight to the destination
+    private boolean partial;
 }
@@ -0,0 +1,139 @@
+package com.rss.core.map.graph;
+
+/**
+ * A* over a {@link RoadGraph} using straight-line distance to the target point as heuristic,
+ * optionally tightened with ALT landmark bounds. With {@link EdgeWeights} it minimizes their cost instead of
+ * length, and scales the straight line by the weights' lower bound per map unit.
+ * Per-query state lives in pooled, generation-stamped arrays, so a query allocates little more than its result.
+ */
+public final class AStarSearch implements PathFinder {
+    private final RoadGraph graph;
+    private final Landmarks landmarks;
+    private final EdgeWeights weights;
+    private final WorkspacePool workspaces;
+
+    public AStarSearch(RoadGraph graph) {
+        this(graph, null, null);
+    }
+
+    public AStarSearch(RoadGraph graph, Landmarks landmarks) {
+        this(graph, landmarks, null);
+    }
+
+    /**
+     * Routes on the given weights; landmark bounds are precomputed on length, so they are not combined.
+     */
+    public AStarSearch(RoadGraph graph, EdgeWeights weights) {
+        this(graph, null, weights);
+    }
+
+    private AStarSearch(RoadGraph graph, Landmarks landmarks, EdgeWeights weights) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.weights = weights;
+        this.workspaces = new WorkspacePool(graph.nodeCount());
+    }
+
+    @Override
+    public GraphPath findPath(RouteQuery query) {
+        WorkspacePool.Workspace workspace = workspaces.acquire();
+        try {
+            return search(query, workspace.forward);
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    private GraphPath search(RouteQuery query, SearchSpace space) {
+        IndexedHeap openSet = space.heap;
+        double tx = query.targetX(), ty = query.targetY();
+        int[] targets = query.targets();
+        // One cost vector for the whole query, null to route on length
+        double[] costs = weights == null ? null : weights.current();
+        double scale = weights == null ? 1.0 : weights.minCostPerUnit();
+        double[] targetCosts = landmarks == null ? null : new double[targets.length];
+        if (targetCosts != null) {
+            for (int i = 0; i < targets.length; i++) targetCosts[i] = graph.distance(targets[i], tx, ty);
+        }
+
+        // Initialize with all potential start nodes (multi-source)
+        for (int s : query.sources()) {
+            if (space.dist(s) == 0.0) continue;
+            space.update(s, 0.0, -1, -1);
+            openSet.push(s, heuristic(s, tx, ty, scale, targets, targetCosts));
+        }
+
+        int settled = 0;
+        int goal = -1;
+        // Settled node closest to the target point, where a search out of budget ends
+        int nearest = -1;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            space.settle(current);
+            settled++;
+
+            // Check if we've reached one of the target nodes
+            if (query.isTarget(current)) {
+                goal = current;
+                break;
+            }
+
+            double straight = graph.distance(current, tx, ty);
+            if (straight < nearestDistance) {
+                nearestDistance = straight;
+                nearest = current;
+            }
+            if (query.budget().isExhausted(settled)) {
+                GraphPath path = reconstruct(nearest, space, space.dist(nearest) + scale * nearestDistance, settled);
+                return new GraphPath(path.nodes(), path.edges(), path.cost(), settled, true);
+            }
+
+            double g = space.dist(current);
+            for (int a = graph.firstOut(current), end = graph.endOut(current); a < end; a++) {
+                int neighbor = graph.outHead(a);
+                if (space.isSettled(neighbor)) continue;
+
+                int edge = graph.outEdge(a);
+                double tentative = g + (costs == null ? graph.edgeLength(edge) : costs[edge]);
+                if (tentative < space.dist(neighbor)) {
+                    space.update(neighbor, tentative, current, edge);
+                    openSet.push(neighbor, tentative + heuristic(neighbor, tx, ty, scale, targets, targetCosts));
+                }
+            }
+        }
+
+        if (goal < 0) return null;
+        return reconstruct(goal, space, space.dist(goal) + scale * graph.distance(goal, tx, ty), settled);
+    }
+
+    /**
+     * Lower bound on the remaining cost from v: the straight line to the target point, or with landmarks the
+     * best triangle bound to a target node plus that node's final leg, whichever is larger.
+     */
+    private double heuristic(int v, double tx, double ty, double scale, int[] targets, double[] targetCosts) {
+        double straight = scale * graph.distance(v, tx, ty);
+        if (landmarks == null) return straight;
+        double alt = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < targets.length; i++) {
+            alt = Math.min(alt, landmarks.lowerBound(v, targets[i]) + targetCosts[i]);
+        }
+        return Math.max(straight, alt);
+    }
+
+    static GraphPath reconstruct(int goal, SearchSpace space, double cost, int settled) {
+        int length = 1;
+        for (int v = goal; space.parentNode(v) >= 0; v = space.parentNode(v)) length++;
+
+        int[] nodes = new int[length];
+        int[] edges = new int[length - 1];
+        int v = goal;
+        for (int i = length - 1; i > 0; i--) {
+            nodes[i] = v;
+            edges[i - 1] = space.parentEdge(v);
+            v = space.parentNode(v);
+        }
+        nodes[0] = v;
+        return new GraphPath(nodes, edges, cost, settled);
+    }
+}
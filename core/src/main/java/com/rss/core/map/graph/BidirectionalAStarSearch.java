@@ -0,0 +1,158 @@
+package com.rss.core.map.graph;
+
+/**
+ * Bidirectional A* over a {@link RoadGraph}. The forward search starts at the query sources, the backward
+ * search at the query targets over reverse arcs, so one-way edges are respected in both directions.
+ * <p>
+ * Both searches use the average potential {@code p(v) = (hf(v) - hb(v)) / 2}, where hf is the straight line
+ * to the target point and hb the straight line from the nearest source. The potentials keep reduced arc costs
+ * non-negative for both sides, so the search may stop once the two frontier keys sum to at least the best
+ * path seen so far.
+ */
+public final class BidirectionalAStarSearch implements PathFinder {
+    private final RoadGraph graph;
+    private final WorkspacePool workspaces;
+
+    public BidirectionalAStarSearch(RoadGraph graph) {
+        this.graph = graph;
+        this.workspaces = new WorkspacePool(graph.nodeCount());
+    }
+
+    @Override
+    public GraphPath findPath(RouteQuery query) {
+        WorkspacePool.Workspace workspace = workspaces.acquire();
+        try {
+            return search(query, workspace.forward, workspace.backward);
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    private GraphPath search(RouteQuery query, SearchSpace fwd, SearchSpace bwd) {
+        IndexedHeap forward = fwd.heap;
+        IndexedHeap backward = bwd.heap;
+        int[] sources = query.sources();
+        double tx = query.targetX(), ty = query.targetY();
+
+        for (int s : sources) {
+            fwd.update(s, 0.0, -1, -1);
+            forward.push(s, potential(s, sources, tx, ty));
+        }
+        for (int t : query.targets()) {
+            double cost = graph.distance(t, tx, ty);
+            if (cost < bwd.dist(t)) {
+                bwd.update(t, cost, -1, -1);
+                backward.push(t, cost - potential(t, sources, tx, ty));
+            }
+        }
+
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        for (int s : sources) {
+            if (bwd.dist(s) < best) {
+                best = bwd.dist(s);
+                meet = s;
+            }
+        }
+
+        // Forward-reached node closest to the target point, where a search out of budget ends without a meeting
+        int nearest = sources[0];
+        double nearestDistance = graph.distance(nearest, tx, ty);
+
+        int settled = 0;
+        boolean exhausted = false;
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            // Standard meeting condition on reduced costs
+            if (forward.peekKey() + backward.peekKey() >= best) break;
+            if (query.budget().isExhausted(settled)) {
+                // A meeting already gives a complete path, if not necessarily the shortest
+                exhausted = true;
+                if (meet >= 0) break;
+                GraphPath path = AStarSearch.reconstruct(nearest, fwd, fwd.dist(nearest) + nearestDistance, settled);
+                return new GraphPath(path.nodes(), path.edges(), path.cost(), settled, true);
+            }
+
+            boolean stepForward = forward.peekKey() <= backward.peekKey();
+            if (stepForward) {
+                int u = forward.poll();
+                fwd.settle(u);
+                settled++;
+                double g = fwd.dist(u);
+                double straight = graph.distance(u, tx, ty);
+                if (straight < nearestDistance) {
+                    nearestDistance = straight;
+                    nearest = u;
+                }
+                for (int a = graph.firstOut(u), end = graph.endOut(u); a < end; a++) {
+                    int v = graph.outHead(a);
+                    if (fwd.isSettled(v)) continue;
+                    int e = graph.outEdge(a);
+                    double d = g + graph.edgeLength(e);
+                    if (d < fwd.dist(v)) {
+                        fwd.update(v, d, u, e);
+                        forward.push(v, d + potential(v, sources, tx, ty));
+                        if (d + bwd.dist(v) < best) {
+                            best = d + bwd.dist(v);
+                            meet = v;
+                        }
+                    }
+                }
+            } else {
+                int u = backward.poll();
+                bwd.settle(u);
+                settled++;
+                double g = bwd.dist(u);
+                for (int a = graph.firstIn(u), end = graph.endIn(u); a < end; a++) {
+                    int v = graph.inTail(a);
+                    if (bwd.isSettled(v)) continue;
+                    int e = graph.inEdge(a);
+                    double d = g + graph.edgeLength(e);
+                    if (d < bwd.dist(v)) {
+                        bwd.update(v, d, u, e);
+                        backward.push(v, d - potential(v, sources, tx, ty));
+                        if (fwd.dist(v) + d < best) {
+                            best = fwd.dist(v) + d;
+                            meet = v;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (meet < 0) return null;
+
+        // Forward half runs source -> meet, backward half meet -> target
+        int forwardLength = 0;
+        for (int v = meet; fwd.parentNode(v) >= 0; v = fwd.parentNode(v)) forwardLength++;
+        int backwardLength = 0;
+        for (int v = meet; bwd.parentNode(v) >= 0; v = bwd.parentNode(v)) backwardLength++;
+
+        int[] nodes = new int[forwardLength + backwardLength + 1];
+        int[] edges = new int[forwardLength + backwardLength];
+        int v = meet;
+        for (int i = forwardLength; i > 0; i--) {
+            nodes[i] = v;
+            edges[i - 1] = fwd.parentEdge(v);
+            v = fwd.parentNode(v);
+        }
+        nodes[0] = v;
+        v = meet;
+        for (int i = forwardLength; i < forwardLength + backwardLength; i++) {
+            edges[i] = bwd.parentEdge(v);
+            v = bwd.parentNode(v);
+            nodes[i + 1] = v;
+        }
+
+        // Reaching the target does not make an unproven path cacheable
+        return new GraphPath(nodes, edges, best, settled, exhausted);
+    }
+
+    private double potential(int v, int[] sources, double tx, double ty) {
+        double toTarget = graph.distance(v, tx, ty);
+        double fromSource = Double.POSITIVE_INFINITY;
+        for (int s : sources) {
+            fromSource = Math.min(fromSource, graph.distance(v, graph.x(s), graph.y(s)));
+        }
+        return (toTarget - fromSource) / 2;
+    }
+}
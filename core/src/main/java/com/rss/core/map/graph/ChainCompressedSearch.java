@@ -0,0 +1,419 @@
+package com.rss.core.map.graph;
+
+import java.util.Arrays;
+
+/**
+ * A* over a compressed view of a {@link RoadGraph}: every maximal chain of degree-2 nodes whose two edges have
+ * the same direction and speed collapses into one arc between the junctions at its ends, and the chain keeps
+ * its intermediate nodes and edges. Found paths are expanded back into those, so callers get the same
+ * {@link GraphPath} as from {@link AStarSearch}.
+ * <p>
+ * Query sources and targets may lie inside a chain. Such a source is seeded at the chain's junctions with the
+ * cost of the part of the chain in between; such a target is reached through an extra goal entry whenever its
+ * chain is relaxed. Costs are edge lengths, or {@link EdgeWeights} summed per chain once per published vector.
+ */
+public final class ChainCompressedSearch implements PathFinder {
+    // Goal entries for targets inside chains follow the junctions in the search space
+    private static final int MAX_TARGETS = 2;
+    // Parent of a node seeded from query source i is SEED - i
+    private static final int SEED = -2;
+
+    private final RoadGraph graph;
+    private final EdgeWeights weights;
+
+    private final int[] junctionNode;
+    // Junction of each graph node, -1 inside chains
+    private final int[] junctionOf;
+
+    // Edges of chain c are chainEdges[chainOffsets[c], chainOffsets[c + 1]); its nodes, junctions included,
+    // are chainNodes[chainOffsets[c] + c, chainOffsets[c + 1] + c]
+    private final int[] chainOffsets;
+    private final int[] chainEdges;
+    private final int[] chainNodes;
+    private final boolean[] chainOneWay;
+    // Chain and position in it of each node inside a chain, -1 for junctions
+    private final int[] chainOf;
+    private final int[] positionOf;
+
+    // Arcs leaving each junction; an arc is chain * 2, plus 1 when it runs from the chain's last node to its first
+    private final int[] outOffsets;
+    private final int[] outHead;
+    private final int[] outArc;
+
+    private final Costs lengthCosts;
+    private volatile Costs weightedCosts;
+    private final WorkspacePool workspaces;
+
+    /**
+     * Chain costs for one edge cost vector.
+     *
+     * @param edgeCosts the vector they were summed from, null for edge lengths
+     * @param chain cost of each whole chain
+     * @param prefix cost from the first node of its chain to each node inside a chain
+     */
+    private record Costs(double[] edgeCosts, double[] chain, double[] prefix) {
+    }
+
+    private ChainCompressedSearch(RoadGraph graph, EdgeWeights weights, boolean[] inside, IntList offsets,
+                                  IntList edges, IntList nodes) {
+        this.graph = graph;
+        this.weights = weights;
+        int n = graph.nodeCount();
+        int chains = offsets.size() - 1;
+        this.chainOffsets = offsets.toArray();
+        this.chainEdges = edges.toArray();
+        this.chainNodes = nodes.toArray();
+
+        this.junctionOf = new int[n];
+        IntList junctions = new IntList();
+        for (int v = 0; v < n; v++) {
+            junctionOf[v] = inside[v] ? -1 : junctions.size();
+            if (!inside[v]) junctions.add(v);
+        }
+        this.junctionNode = junctions.toArray();
+
+        this.chainOneWay = new boolean[chains];
+        this.chainOf = new int[n];
+        this.positionOf = new int[n];
+        Arrays.fill(chainOf, -1);
+        for (int c = 0; c < chains; c++) {
+            chainOneWay[c] = graph.isOneWay(chainEdges[chainOffsets[c]]);
+            for (int i = 1, last = chainLength(c); i < last; i++) {
+                int v = chainNode(c, i);
+                chainOf[v] = c;
+                positionOf[v] = i;
+            }
+        }
+
+        int m = junctionNode.length;
+        this.outOffsets = new int[m + 1];
+        for (int c = 0; c < chains; c++) {
+            outOffsets[junctionOf[chainNode(c, 0)] + 1]++;
+            if (!chainOneWay[c]) outOffsets[junctionOf[chainNode(c, chainLength(c))] + 1]++;
+        }
+        for (int j = 0; j < m; j++) outOffsets[j + 1] += outOffsets[j];
+        this.outHead = new int[outOffsets[m]];
+        this.outArc = new int[outOffsets[m]];
+        int[] fill = Arrays.copyOf(outOffsets, m);
+        for (int c = 0; c < chains; c++) {
+            int first = junctionOf[chainNode(c, 0)];
+            int last = junctionOf[chainNode(c, chainLength(c))];
+            outHead[fill[first]] = last;
+            outArc[fill[first]++] = c * 2;
+            if (!chainOneWay[c]) {
+                outHead[fill[last]] = first;
+                outArc[fill[last]++] = c * 2 + 1;
+            }
+        }
+
+        double[] lengths = new double[graph.edgeCount()];
+        for (int e = 0; e < lengths.length; e++) lengths[e] = graph.edgeLength(e);
+        this.lengthCosts = sum(lengths, null);
+        this.workspaces = new WorkspacePool(m + MAX_TARGETS);
+    }
+
+    /**
+     * Compresses the graph for routing on edge length.
+     */
+    public static ChainCompressedSearch build(RoadGraph graph) {
+        return build(graph, null);
+    }
+
+    /**
+     * Compresses the graph for routing on the given weights.
+     */
+    public static ChainCompressedSearch build(RoadGraph graph, EdgeWeights weights) {
+        int n = graph.nodeCount();
+        // The two edges of each node inside a chain
+        int[] firstEdge = new int[n];
+        int[] secondEdge = new int[n];
+        boolean[] inside = new boolean[n];
+        for (int v = 0; v < n; v++) inside[v] = chainEdgesAt(graph, v, firstEdge, secondEdge);
+
+        IntList offsets = new IntList();
+        IntList edges = new IntList(graph.edgeCount());
+        IntList nodes = new IntList(graph.edgeCount());
+        offsets.add(0);
+        boolean[] used = new boolean[graph.edgeCount()];
+        for (int v = 0; v < n; v++) {
+            if (inside[v]) continue;
+            for (int a = graph.firstOut(v), end = graph.endOut(v); a < end; a++)
+                walk(graph, v, graph.outEdge(a), inside, firstEdge, secondEdge, used, offsets, edges, nodes);
+            for (int a = graph.firstIn(v), end = graph.endIn(v); a < end; a++)
+                walk(graph, v, graph.inEdge(a), inside, firstEdge, secondEdge, used, offsets, edges, nodes);
+        }
+        // Whatever is left forms closed rings without a junction; make one node of each ring a junction
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (used[e]) continue;
+            int v = graph.edgeStart(e);
+            inside[v] = false;
+            walk(graph, v, e, inside, firstEdge, secondEdge, used, offsets, edges, nodes);
+        }
+        return new ChainCompressedSearch(graph, weights, inside, offsets, edges, nodes);
+    }
+
+    // Node inside a chain: exactly two edges, to two other distinct nodes, with equal speed and direction
+    private static boolean chainEdgesAt(RoadGraph graph, int v, int[] firstEdge, int[] secondEdge) {
+        int e1 = -1, e2 = -1;
+        for (int i = 0; i < 2; i++) {
+            int from = i == 0 ? graph.firstOut(v) : graph.firstIn(v);
+            int to = i == 0 ? graph.endOut(v) : graph.endIn(v);
+            for (int a = from; a < to; a++) {
+                int e = i == 0 ? graph.outEdge(a) : graph.inEdge(a);
+                if (e == e1 || e == e2) continue;
+                if (e1 < 0) e1 = e;
+                else if (e2 < 0) e2 = e;
+                else return false;
+            }
+        }
+        if (e2 < 0) return false;
+        int u = other(graph, e1, v), w = other(graph, e2, v);
+        if (u == v || w == v || u == w) return false;
+        if (graph.edgeSpeed(e1) != graph.edgeSpeed(e2) || graph.isOneWay(e1) != graph.isOneWay(e2)) return false;
+        // A one-way chain must pass through: one edge in, one edge out
+        if (graph.isOneWay(e1) && (graph.edgeEnd(e1) == v) == (graph.edgeEnd(e2) == v)) return false;
+        firstEdge[v] = e1;
+        secondEdge[v] = e2;
+        return true;
+    }
+
+    // Follows an unused edge from a junction through chain nodes to the next junction and records the chain
+    private static void walk(RoadGraph graph, int junction, int edge, boolean[] inside, int[] firstEdge,
+                             int[] secondEdge, boolean[] used, IntList offsets, IntList edges, IntList nodes) {
+        if (used[edge]) return;
+        int start = edges.size();
+        nodes.add(junction);
+        int v = junction;
+        while (true) {
+            used[edge] = true;
+            edges.add(edge);
+            v = other(graph, edge, v);
+            nodes.add(v);
+            if (!inside[v]) break;
+            edge = firstEdge[v] == edge ? secondEdge[v] : firstEdge[v];
+        }
+        // One-way chains are stored in their direction of travel
+        if (graph.isOneWay(edges.get(start)) && graph.edgeStart(edges.get(start)) != junction) {
+            reverse(edges, start, edges.size() - 1);
+            reverse(nodes, start + offsets.size() - 1, nodes.size() - 1);
+        }
+        offsets.add(edges.size());
+    }
+
+    private static void reverse(IntList list, int from, int to) {
+        for (; from < to; from++, to--) {
+            int tmp = list.get(from);
+            list.set(from, list.get(to));
+            list.set(to, tmp);
+        }
+    }
+
+    private static int other(RoadGraph graph, int edge, int v) {
+        return graph.edgeStart(edge) == v ? graph.edgeEnd(edge) : graph.edgeStart(edge);
+    }
+
+    public int junctionCount() {
+        return junctionNode.length;
+    }
+
+    public int chainCount() {
+        return chainOneWay.length;
+    }
+
+    @Override
+    public GraphPath findPath(RouteQuery query) {
+        if (query.targets().length > MAX_TARGETS)
+            throw new IllegalArgumentException("At most " + MAX_TARGETS + " target nodes are supported");
+        Costs costs = currentCosts();
+        WorkspacePool.Workspace workspace = workspaces.acquire();
+        try {
+            return search(query, costs, workspace.forward);
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    private GraphPath search(RouteQuery query, Costs costs, SearchSpace space) {
+        IndexedHeap openSet = space.heap;
+        double tx = query.targetX(), ty = query.targetY();
+        double scale = weights == null ? 1.0 : weights.minCostPerUnit();
+        int[] sources = query.sources();
+        int[] targets = query.targets();
+        int goalBase = junctionNode.length;
+        int[] targetChain = new int[targets.length];
+        double[] legs = new double[targets.length];
+        for (int k = 0; k < targets.length; k++) {
+            targetChain[k] = chainOf[targets[k]];
+            legs[k] = scale * graph.distance(targets[k], tx, ty);
+        }
+
+        for (int i = 0; i < sources.length; i++) {
+            int s = sources[i];
+            if (junctionOf[s] >= 0) {
+                reach(space, junctionOf[s], 0.0, -1, -1, heuristic(junctionOf[s], tx, ty, scale));
+                continue;
+            }
+            int c = chainOf[s];
+            double before = costs.prefix()[s];
+            double after = costs.chain()[c] - before;
+            int first = junctionOf[chainNode(c, 0)], last = junctionOf[chainNode(c, chainLength(c))];
+            reach(space, last, after, SEED - i, c * 2, after + heuristic(last, tx, ty, scale));
+            if (!chainOneWay[c])
+                reach(space, first, before, SEED - i, c * 2 + 1, before + heuristic(first, tx, ty, scale));
+
+            // A target further along the same chain is reached without passing a junction
+            for (int k = 0; k < targets.length; k++) {
+                if (targetChain[k] != c) continue;
+                int t = targets[k];
+                double along = t == s ? 0.0 : costs.prefix()[t] - before;
+                if (positionOf[t] >= positionOf[s]) {
+                    reach(space, goalBase + k, along, SEED - i, c * 2, along + legs[k]);
+                } else if (!chainOneWay[c]) {
+                    reach(space, goalBase + k, -along, SEED - i, c * 2 + 1, -along + legs[k]);
+                }
+            }
+        }
+
+        int settled = 0;
+        int goal = -1;
+        // Settled junction closest to the target point, where a search out of budget ends
+        int nearest = -1;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            space.settle(current);
+            settled++;
+
+            if (current >= goalBase || query.isTarget(junctionNode[current])) {
+                goal = current;
+                break;
+            }
+
+            double straight = graph.distance(junctionNode[current], tx, ty);
+            if (straight < nearestDistance) {
+                nearestDistance = straight;
+                nearest = current;
+            }
+            if (query.budget().isExhausted(settled)) {
+                GraphPath path = expand(nearest, space, sources, targets,
+                        space.dist(nearest) + scale * nearestDistance, settled);
+                return new GraphPath(path.nodes(), path.edges(), path.cost(), settled, true);
+            }
+
+            double g = space.dist(current);
+            for (int a = outOffsets[current], end = outOffsets[current + 1]; a < end; a++) {
+                int arc = outArc[a];
+                int c = arc >> 1;
+                boolean backward = (arc & 1) != 0;
+                for (int k = 0; k < targets.length; k++) {
+                    if (targetChain[k] != c) continue;
+                    double prefix = costs.prefix()[targets[k]];
+                    double along = g + (backward ? costs.chain()[c] - prefix : prefix);
+                    reach(space, goalBase + k, along, current, arc, along + legs[k]);
+                }
+
+                int neighbor = outHead[a];
+                if (space.isSettled(neighbor)) continue;
+                double tentative = g + costs.chain()[c];
+                if (tentative < space.dist(neighbor)) {
+                    space.update(neighbor, tentative, current, arc);
+                    openSet.push(neighbor, tentative + heuristic(neighbor, tx, ty, scale));
+                }
+            }
+        }
+
+        if (goal < 0) return null;
+        double cost = space.dist(goal) + (goal >= goalBase
+                ? legs[goal - goalBase]
+                : scale * graph.distance(junctionNode[goal], tx, ty));
+        return expand(goal, space, sources, targets, cost, settled);
+    }
+
+    private static void reach(SearchSpace space, int node, double dist, int parent, int arc, double key) {
+        if (dist < space.dist(node)) {
+            space.update(node, dist, parent, arc);
+            space.heap.push(node, key);
+        }
+    }
+
+    private double heuristic(int junction, double tx, double ty, double scale) {
+        return scale * graph.distance(junctionNode[junction], tx, ty);
+    }
+
+    // Unpacks the chain arcs on the way back from the goal into graph nodes and edges
+    private GraphPath expand(int goal, SearchSpace space, int[] sources, int[] targets, double cost, int settled) {
+        int goalBase = junctionNode.length;
+        IntList nodes = new IntList();
+        IntList edges = new IntList();
+        int v = goal;
+        nodes.add(v >= goalBase ? targets[v - goalBase] : junctionNode[v]);
+        while (true) {
+            int parent = space.parentNode(v);
+            int arc = space.parentEdge(v);
+            // Seeded at a source junction
+            if (arc < 0) break;
+            int c = arc >> 1;
+            boolean backward = (arc & 1) != 0;
+            int from = parent >= 0 ? (backward ? chainLength(c) : 0) : positionOf[sources[SEED - parent]];
+            int to = v >= goalBase ? positionOf[targets[v - goalBase]] : (backward ? 0 : chainLength(c));
+            if (!backward) {
+                for (int p = to; p > from; p--) {
+                    edges.add(chainEdge(c, p - 1));
+                    nodes.add(chainNode(c, p - 1));
+                }
+            } else {
+                for (int p = to; p < from; p++) {
+                    edges.add(chainEdge(c, p));
+                    nodes.add(chainNode(c, p + 1));
+                }
+            }
+            if (parent < 0) break;
+            v = parent;
+        }
+
+        int[] pathNodes = new int[nodes.size()];
+        int[] pathEdges = new int[edges.size()];
+        for (int i = 0; i < pathNodes.length; i++) pathNodes[i] = nodes.get(pathNodes.length - 1 - i);
+        for (int i = 0; i < pathEdges.length; i++) pathEdges[i] = edges.get(pathEdges.length - 1 - i);
+        return new GraphPath(pathNodes, pathEdges, cost, settled);
+    }
+
+    // Number of edges of the chain, which is also the position of its last node
+    private int chainLength(int c) {
+        return chainOffsets[c + 1] - chainOffsets[c];
+    }
+
+    private int chainNode(int c, int position) {
+        return chainNodes[chainOffsets[c] + c + position];
+    }
+
+    private int chainEdge(int c, int position) {
+        return chainEdges[chainOffsets[c] + position];
+    }
+
+    private Costs currentCosts() {
+        if (weights == null) return lengthCosts;
+        double[] edgeCosts = weights.current();
+        Costs costs = weightedCosts;
+        if (costs == null || costs.edgeCosts() != edgeCosts) {
+            // Racing queries may both sum the new vector; either result is the same
+            costs = sum(edgeCosts, edgeCosts);
+            weightedCosts = costs;
+        }
+        return costs;
+    }
+
+    private Costs sum(double[] edgeCosts, double[] key) {
+        double[] chain = new double[chainOneWay.length];
+        double[] prefix = new double[graph.nodeCount()];
+        for (int c = 0; c < chain.length; c++) {
+            double total = 0;
+            for (int i = 0, length = chainLength(c); i < length; i++) {
+                total += edgeCosts[chainEdge(c, i)];
+                if (i + 1 < length) prefix[chainNode(c, i + 1)] = total;
+            }
+            chain[c] = total;
+        }
+        return new Costs(key, chain, prefix);
+    }
+}
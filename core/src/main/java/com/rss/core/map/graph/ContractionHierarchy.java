@@ -0,0 +1,526 @@
+package com.rss.core.map.graph;
+
+import java.util.Arrays;
+
+/**
+ * Contraction Hierarchies over a {@link RoadGraph}, weighted by edge length.
+ * <p>
+ * Preprocessing contracts nodes one by one in order of importance (edge difference plus contracted
+ * neighbours) and inserts shortcut arcs wherever a local witness search cannot prove a path around
+ * the contracted node. Queries run a bidirectional Dijkstra that only relaxes arcs towards higher
+ * ranked nodes, then unpack shortcuts back into the original edges.
+ * <p>
+ * Every arc also carries its travel time at the speed limit, summed along the shortest-length path, which
+ * the many-to-many search reports next to the distance.
+ */
+public final class ContractionHierarchy implements PathFinder {
+
+    // Witness searches give up after this many settled nodes and keep the shortcut instead
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final RoadGraph graph;
+    private final int[] rank;
+
+    // Hierarchy arcs: originals carry their edge index, shortcuts the two arcs they replace
+    private final int[] arcTail;
+    private final int[] arcHead;
+    private final double[] arcWeight;
+    private final double[] arcTime;
+    private final int[] arcEdge;
+    private final int[] arcFirst;
+    private final int[] arcSecond;
+    private final int shortcutCount;
+
+    // Arcs leaving v towards higher ranked nodes (forward search)
+    private final int[] upOffsets;
+    private final int[] upArcs;
+    // Arcs entering v from higher ranked nodes (backward search)
+    private final int[] downOffsets;
+    private final int[] downArcs;
+
+    private final WorkspacePool workspaces;
+
+    private ContractionHierarchy(RoadGraph graph, Contractor c) {
+        this.graph = graph;
+        this.workspaces = new WorkspacePool(graph.nodeCount());
+        this.rank = c.rank;
+        int arcs = c.arcCount;
+        this.arcTail = Arrays.copyOf(c.tail, arcs);
+        this.arcHead = Arrays.copyOf(c.head, arcs);
+        this.arcWeight = Arrays.copyOf(c.weight, arcs);
+        this.arcTime = Arrays.copyOf(c.time, arcs);
+        this.arcEdge = Arrays.copyOf(c.edge, arcs);
+        this.arcFirst = Arrays.copyOf(c.first, arcs);
+        this.arcSecond = Arrays.copyOf(c.second, arcs);
+        this.shortcutCount = c.shortcutCount;
+
+        int n = graph.nodeCount();
+        upOffsets = new int[n + 1];
+        downOffsets = new int[n + 1];
+        for (int a = 0; a < arcs; a++) {
+            if (rank[arcHead[a]] > rank[arcTail[a]]) upOffsets[arcTail[a] + 1]++;
+            else downOffsets[arcHead[a] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] += upOffsets[v];
+            downOffsets[v + 1] += downOffsets[v];
+        }
+        upArcs = new int[upOffsets[n]];
+        downArcs = new int[downOffsets[n]];
+        int[] upFill = Arrays.copyOf(upOffsets, n);
+        int[] downFill = Arrays.copyOf(downOffsets, n);
+        for (int a = 0; a < arcs; a++) {
+            if (rank[arcHead[a]] > rank[arcTail[a]]) upArcs[upFill[arcTail[a]]++] = a;
+            else downArcs[downFill[arcHead[a]]++] = a;
+        }
+    }
+
+    public static ContractionHierarchy build(RoadGraph graph) {
+        Contractor contractor = new Contractor(graph);
+        contractor.contractAll();
+        return new ContractionHierarchy(graph, contractor);
+    }
+
+    public RoadGraph graph() {
+        return graph;
+    }
+
+    public int shortcutCount() {
+        return shortcutCount;
+    }
+
+    @Override
+    public GraphPath findPath(RouteQuery query) {
+        WorkspacePool.Workspace workspace = workspaces.acquire();
+        try {
+            return search(query, workspace.forward, workspace.backward);
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    // Parent "edges" of both search spaces hold hierarchy arcs
+    private GraphPath search(RouteQuery query, SearchSpace fwd, SearchSpace bwd) {
+        IndexedHeap forward = fwd.heap;
+        IndexedHeap backward = bwd.heap;
+
+        for (int s : query.sources()) {
+            fwd.update(s, 0.0, -1, -1);
+            forward.push(s, 0.0);
+        }
+        for (int t : query.targets()) {
+            double cost = graph.distance(t, query.targetX(), query.targetY());
+            if (cost < bwd.dist(t)) {
+                bwd.update(t, cost, -1, -1);
+                backward.push(t, cost);
+            }
+        }
+
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        int settled = 0;
+        while (true) {
+            boolean forwardDone = forward.isEmpty() || forward.peekKey() >= best;
+            boolean backwardDone = backward.isEmpty() || backward.peekKey() >= best;
+            if (forwardDone && backwardDone) break;
+
+            // Advance whichever frontier is closer to its origin
+            boolean stepForward = backwardDone || (!forwardDone && forward.peekKey() <= backward.peekKey());
+            IndexedHeap heap = stepForward ? forward : backward;
+            double key = heap.peekKey();
+            int u = heap.poll();
+            settled++;
+
+            double total = fwd.dist(u) + bwd.dist(u);
+            if (total < best) {
+                best = total;
+                meet = u;
+            }
+
+            if (stepForward) {
+                for (int i = upOffsets[u], end = upOffsets[u + 1]; i < end; i++) {
+                    int a = upArcs[i];
+                    int v = arcHead[a];
+                    double d = key + arcWeight[a];
+                    if (d < fwd.dist(v)) {
+                        fwd.update(v, d, u, a);
+                        forward.push(v, d);
+                    }
+                }
+            } else {
+                for (int i = downOffsets[u], end = downOffsets[u + 1]; i < end; i++) {
+                    int a = downArcs[i];
+                    int v = arcTail[a];
+                    double d = key + arcWeight[a];
+                    if (d < bwd.dist(v)) {
+                        bwd.update(v, d, u, a);
+                        backward.push(v, d);
+                    }
+                }
+            }
+        }
+
+        if (meet < 0) return null;
+
+        // Collect hierarchy arcs source -> meet -> target, then unpack shortcuts
+        IntList upward = new IntList();
+        int source = meet;
+        for (int v = meet; fwd.parentNode(v) >= 0; v = fwd.parentNode(v)) {
+            upward.add(fwd.parentEdge(v));
+            source = fwd.parentNode(v);
+        }
+        IntList edges = new IntList();
+        IntList nodes = new IntList();
+        nodes.add(source);
+        IntList stack = new IntList();
+        for (int i = upward.size() - 1; i >= 0; i--) unpack(upward.get(i), stack, nodes, edges);
+        for (int v = meet; bwd.parentNode(v) >= 0; v = bwd.parentNode(v)) unpack(bwd.parentEdge(v), stack, nodes, edges);
+
+        return new GraphPath(nodes.toArray(), edges.toArray(), best, settled);
+    }
+
+    /**
+     * Road distances and travel times from every origin to every destination, written row-major into
+     * {@code distances} and {@code durations} (origin * destinations.length + destination); infinite when unreachable.
+     * <p>
+     * Bucket-based many-to-many search: one backward upward search per destination stores (destination, distance,
+     * time) in a bucket at every node it settles, then one forward upward search per origin scans the buckets of
+     * the nodes it settles. Each origin and destination costs a single small search instead of one per pair.
+     * Positions are joined to the network along their edge, respecting one-way edges.
+     */
+    public void manyToMany(EdgePosition[] origins, EdgePosition[] destinations, double[] distances, double[] durations) {
+        WorkspacePool.Workspace workspace = workspaces.acquire();
+        try {
+            manyToMany(origins, destinations, distances, durations, workspace.forward);
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    private void manyToMany(EdgePosition[] origins, EdgePosition[] destinations, double[] distances,
+                            double[] durations, SearchSpace space) {
+        int n = graph.nodeCount();
+        int columns = destinations.length;
+        Arrays.fill(distances, 0, origins.length * columns, Double.POSITIVE_INFINITY);
+        Arrays.fill(durations, 0, origins.length * columns, Double.POSITIVE_INFINITY);
+
+        // Buckets collected as flat entries, grouped by node afterwards
+        IntList entryNode = new IntList();
+        IntList entryTarget = new IntList();
+        double[] entryDist = new double[64];
+        double[] entryTime = new double[64];
+        IntList settledNodes = new IntList();
+
+        for (int j = 0; j < columns; j++) {
+            EdgePosition target = destinations[j];
+            int e = target.edge();
+            space.reset();
+            // Reach the point from the start node along the edge, or from the end node against it
+            seed(space, graph.edgeStart(e), target.t() * graph.edgeLength(e), target.t() * graph.edgeTime(e));
+            if (!graph.isOneWay(e))
+                seed(space, graph.edgeEnd(e), (1 - target.t()) * graph.edgeLength(e), (1 - target.t()) * graph.edgeTime(e));
+            upwardSearch(false, space, settledNodes);
+            for (int i = 0; i < settledNodes.size(); i++) {
+                int v = settledNodes.get(i);
+                int k = entryNode.size();
+                if (k == entryDist.length) {
+                    entryDist = Arrays.copyOf(entryDist, k * 2);
+                    entryTime = Arrays.copyOf(entryTime, k * 2);
+                }
+                entryNode.add(v);
+                entryTarget.add(j);
+                entryDist[k] = space.dist(v);
+                entryTime[k] = space.aux(v);
+            }
+        }
+
+        int entries = entryNode.size();
+        int[] bucketOffsets = new int[n + 1];
+        for (int k = 0; k < entries; k++) bucketOffsets[entryNode.get(k) + 1]++;
+        for (int v = 0; v < n; v++) bucketOffsets[v + 1] += bucketOffsets[v];
+        int[] bucket = new int[entries];
+        int[] fill = Arrays.copyOf(bucketOffsets, n);
+        for (int k = 0; k < entries; k++) bucket[fill[entryNode.get(k)]++] = k;
+
+        for (int i = 0; i < origins.length; i++) {
+            EdgePosition origin = origins[i];
+            int e = origin.edge();
+            space.reset();
+            // Leave the point towards the end node along the edge, or towards the start node against it
+            seed(space, graph.edgeEnd(e), (1 - origin.t()) * graph.edgeLength(e), (1 - origin.t()) * graph.edgeTime(e));
+            if (!graph.isOneWay(e))
+                seed(space, graph.edgeStart(e), origin.t() * graph.edgeLength(e), origin.t() * graph.edgeTime(e));
+            upwardSearch(true, space, settledNodes);
+            int row = i * columns;
+            for (int s = 0; s < settledNodes.size(); s++) {
+                int v = settledNodes.get(s);
+                for (int b = bucketOffsets[v], end = bucketOffsets[v + 1]; b < end; b++) {
+                    int k = bucket[b];
+                    int cell = row + entryTarget.get(k);
+                    double d = space.dist(v) + entryDist[k];
+                    if (d < distances[cell]) {
+                        distances[cell] = d;
+                        durations[cell] = space.aux(v) + entryTime[k];
+                    }
+                }
+            }
+
+            // Both positions on the same edge: the direct stretch may beat leaving the edge
+            for (int j = 0; j < columns; j++) {
+                EdgePosition target = destinations[j];
+                if (target.edge() != e) continue;
+                double delta = target.t() - origin.t();
+                if (delta < 0 && graph.isOneWay(e)) continue;
+                double d = Math.abs(delta) * graph.edgeLength(e);
+                if (d < distances[row + j]) {
+                    distances[row + j] = d;
+                    durations[row + j] = Math.abs(delta) * graph.edgeTime(e);
+                }
+            }
+        }
+    }
+
+    private static void seed(SearchSpace space, int v, double distance, double time) {
+        if (distance >= space.dist(v)) return;
+        space.update(v, distance, time, -1, -1);
+        space.heap.push(v, distance);
+    }
+
+    /**
+     * Exhaustive Dijkstra over upward arcs (forward) or arcs from higher ranked nodes (backward) from the seeded
+     * heap, collecting the settled nodes.
+     */
+    private void upwardSearch(boolean forward, SearchSpace space, IntList settled) {
+        settled.clear();
+        IndexedHeap heap = space.heap;
+        int[] offsets = forward ? upOffsets : downOffsets;
+        int[] arcs = forward ? upArcs : downArcs;
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int u = heap.poll();
+            settled.add(u);
+            for (int i = offsets[u], end = offsets[u + 1]; i < end; i++) {
+                int a = arcs[i];
+                int v = forward ? arcHead[a] : arcTail[a];
+                double d = key + arcWeight[a];
+                if (d < space.dist(v)) {
+                    space.update(v, d, space.aux(u) + arcTime[a], u, a);
+                    heap.push(v, d);
+                }
+            }
+        }
+    }
+
+    private void unpack(int arc, IntList stack, IntList nodes, IntList edges) {
+        stack.add(arc);
+        while (!stack.isEmpty()) {
+            int a = stack.removeLast();
+            if (arcEdge[a] >= 0) {
+                edges.add(arcEdge[a]);
+                nodes.add(arcHead[a]);
+            } else {
+                // Second half is pushed first so the first half is emitted first
+                stack.add(arcSecond[a]);
+                stack.add(arcFirst[a]);
+            }
+        }
+    }
+
+    /**
+     * Mutable preprocessing state; discarded once the hierarchy is built.
+     */
+    private static final class Contractor {
+        private final RoadGraph graph;
+        private final int n;
+        private final int[] rank;
+        private final boolean[] contracted;
+        private final int[] contractedNeighbours;
+
+        // Growable arc storage
+        private int[] tail = new int[64];
+        private int[] head = new int[64];
+        private double[] weight = new double[64];
+        private double[] time = new double[64];
+        private int[] edge = new int[64];
+        private int[] first = new int[64];
+        private int[] second = new int[64];
+        private int arcCount;
+        private int shortcutCount;
+
+        // Arc ids incident to each node, including arcs to already contracted nodes
+        private final IntList[] out;
+        private final IntList[] in;
+
+        // Witness search state, reset through the touched list
+        private final double[] witnessDist;
+        private final IntList touched = new IntList();
+        private final MinHeap witnessHeap = new MinHeap(64);
+
+        Contractor(RoadGraph graph) {
+            this.graph = graph;
+            this.n = graph.nodeCount();
+            this.rank = new int[n];
+            this.contracted = new boolean[n];
+            this.contractedNeighbours = new int[n];
+            this.out = new IntList[n];
+            this.in = new IntList[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new IntList(4);
+                in[v] = new IntList(4);
+            }
+            this.witnessDist = new double[n];
+            Arrays.fill(witnessDist, Double.POSITIVE_INFINITY);
+
+            for (int u = 0; u < n; u++) {
+                for (int a = graph.firstOut(u), end = graph.endOut(u); a < end; a++) {
+                    int v = graph.outHead(a);
+                    if (v == u) continue;
+                    int e = graph.outEdge(a);
+                    addOrImprove(u, v, graph.edgeLength(e), graph.edgeTime(e), e, -1, -1);
+                }
+            }
+        }
+
+        void contractAll() {
+            MinHeap queue = new MinHeap(n);
+            for (int v = 0; v < n; v++) queue.push(v, priority(v));
+
+            int order = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                if (contracted[v]) continue;
+                // Lazy update: re-queue if the node became more important than the next candidate
+                double current = priority(v);
+                if (!queue.isEmpty() && current > queue.peekKey()) {
+                    queue.push(v, current);
+                    continue;
+                }
+                contract(v, false);
+                contracted[v] = true;
+                rank[v] = order++;
+                for (int i = 0; i < out[v].size(); i++) contractedNeighbours[head[out[v].get(i)]]++;
+                for (int i = 0; i < in[v].size(); i++) contractedNeighbours[tail[in[v].get(i)]]++;
+            }
+        }
+
+        private double priority(int v) {
+            int shortcuts = contract(v, true);
+            int degree = 0;
+            for (int i = 0; i < out[v].size(); i++) if (!contracted[head[out[v].get(i)]]) degree++;
+            for (int i = 0; i < in[v].size(); i++) if (!contracted[tail[in[v].get(i)]]) degree++;
+            return shortcuts - degree + contractedNeighbours[v];
+        }
+
+        /**
+         * Adds the shortcuts needed to remove v, or only counts them when simulating.
+         */
+        private int contract(int v, boolean simulate) {
+            int shortcuts = 0;
+            IntList incoming = in[v];
+            IntList outgoing = out[v];
+            for (int i = 0; i < incoming.size(); i++) {
+                int inArc = incoming.get(i);
+                int u = tail[inArc];
+                if (contracted[u]) continue;
+
+                double maxCost = 0;
+                for (int j = 0; j < outgoing.size(); j++) {
+                    int w = head[outgoing.get(j)];
+                    if (w == u || contracted[w]) continue;
+                    maxCost = Math.max(maxCost, weight[inArc] + weight[outgoing.get(j)]);
+                }
+                if (maxCost == 0) continue;
+
+                witnessSearch(u, v, maxCost);
+                for (int j = 0; j < outgoing.size(); j++) {
+                    int outArc = outgoing.get(j);
+                    int w = head[outArc];
+                    if (w == u || contracted[w]) continue;
+                    double via = weight[inArc] + weight[outArc];
+                    if (witnessDist[w] <= via) continue;
+                    shortcuts++;
+                    if (!simulate) {
+                        addOrImprove(u, w, via, time[inArc] + time[outArc], -1, inArc, outArc);
+                        shortcutCount++;
+                    }
+                }
+                resetWitness();
+            }
+            return shortcuts;
+        }
+
+        private void witnessSearch(int source, int excluded, double maxCost) {
+            witnessDist[source] = 0;
+            touched.add(source);
+            witnessHeap.clear();
+            witnessHeap.push(source, 0);
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                double key = witnessHeap.peekKey();
+                int u = witnessHeap.poll();
+                if (key > witnessDist[u]) continue;
+                if (key > maxCost) break;
+                settled++;
+                IntList arcs = out[u];
+                for (int i = 0; i < arcs.size(); i++) {
+                    int a = arcs.get(i);
+                    int w = head[a];
+                    if (w == excluded || contracted[w]) continue;
+                    double d = key + weight[a];
+                    if (d < witnessDist[w]) {
+                        if (witnessDist[w] == Double.POSITIVE_INFINITY) touched.add(w);
+                        witnessDist[w] = d;
+                        witnessHeap.push(w, d);
+                    }
+                }
+            }
+        }
+
+        private void resetWitness() {
+            for (int i = 0; i < touched.size(); i++) witnessDist[touched.get(i)] = Double.POSITIVE_INFINITY;
+            touched.clear();
+        }
+
+        /**
+         * Keeps at most one arc per ordered node pair; a cheaper arc replaces the existing one in place.
+         * Replacing is safe because only arcs into contracted nodes are ever referenced by shortcuts.
+         */
+        private void addOrImprove(int u, int w, double cost, double duration, int originalEdge,
+                                  int firstArc, int secondArc) {
+            IntList arcs = out[u];
+            for (int i = 0; i < arcs.size(); i++) {
+                int a = arcs.get(i);
+                if (head[a] == w) {
+                    if (cost < weight[a]) {
+                        weight[a] = cost;
+                        time[a] = duration;
+                        edge[a] = originalEdge;
+                        first[a] = firstArc;
+                        second[a] = secondArc;
+                    }
+                    return;
+                }
+            }
+            if (arcCount == tail.length) {
+                int capacity = arcCount * 2;
+                tail = Arrays.copyOf(tail, capacity);
+                head = Arrays.copyOf(head, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+                time = Arrays.copyOf(time, capacity);
+                edge = Arrays.copyOf(edge, capacity);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+            }
+            int a = arcCount++;
+            tail[a] = u;
+            head[a] = w;
+            weight[a] = cost;
+            time[a] = duration;
+            edge[a] = originalEdge;
+            first[a] = firstArc;
+            second[a] = secondArc;
+            out[u].add(a);
+            in[w].add(a);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.rss.core.map.graph;
+
+/**
+ * A point on an edge, {@code t} being the fraction of the edge length from its start node.
+ */
+public record EdgePosition(int edge, double t) {
+}
@@ -0,0 +1,208 @@
+package com.rss.core.map.graph;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the edge segments of a {@link RoadGraph} for nearest-edge lookups.
+ * Every edge is registered in each cell its bounding box overlaps, so long edges crossing a cell are found
+ * even when neither end node lies inside it. Queries scan rings of cells around the point and stop as soon as
+ * no unvisited cell can hold a closer segment.
+ */
+public final class EdgeSpatialIndex {
+    private final RoadGraph graph;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    // Edges of cell c are cellEdges[cellOffsets[c], cellOffsets[c + 1])
+    private final int[] cellOffsets;
+    private final int[] cellEdges;
+
+    /**
+     * Closest point on an edge: t is the position along the edge from its start node, clamped to [0, 1].
+     */
+    public record Nearest(int edge, double t, double x, double y, double distance) {
+    }
+
+    private EdgeSpatialIndex(RoadGraph graph, double minX, double minY, double cellSize, int columns, int rows,
+                             int[] cellOffsets, int[] cellEdges) {
+        this.graph = graph;
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.columns = columns;
+        this.rows = rows;
+        this.cellOffsets = cellOffsets;
+        this.cellEdges = cellEdges;
+    }
+
+    /**
+     * Builds the grid with a cell size close to the average edge length, so most edges span one or two cells.
+     */
+    public static EdgeSpatialIndex build(RoadGraph graph) {
+        int n = graph.nodeCount();
+        int m = graph.edgeCount();
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < n; v++) {
+            minX = Math.min(minX, graph.x(v));
+            minY = Math.min(minY, graph.y(v));
+            maxX = Math.max(maxX, graph.x(v));
+            maxY = Math.max(maxY, graph.y(v));
+        }
+        if (n == 0) minX = minY = maxX = maxY = 0;
+
+        double totalLength = 0;
+        for (int e = 0; e < m; e++) totalLength += graph.edgeLength(e);
+        double cellSize = m == 0 ? 1 : Math.max(totalLength / m, 1);
+        int columns = (int) Math.min(4096, Math.floor((maxX - minX) / cellSize) + 1);
+        int rows = (int) Math.min(4096, Math.floor((maxY - minY) / cellSize) + 1);
+        cellSize = Math.max(cellSize, Math.max((maxX - minX) / columns, (maxY - minY) / rows));
+
+        EdgeSpatialIndex shape = new EdgeSpatialIndex(graph, minX, minY, cellSize, columns, rows, null, null);
+        int[] cellOffsets = new int[columns * rows + 1];
+        // Count, prefix-sum, then fill, as for the CSR arcs
+        for (int e = 0; e < m; e++) {
+            int[] box = shape.cellBox(e);
+            for (int cy = box[1]; cy <= box[3]; cy++)
+                for (int cx = box[0]; cx <= box[2]; cx++) cellOffsets[cy * columns + cx + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) cellOffsets[c + 1] += cellOffsets[c];
+        int[] cellEdges = new int[cellOffsets[columns * rows]];
+        int[] fill = Arrays.copyOf(cellOffsets, columns * rows);
+        for (int e = 0; e < m; e++) {
+            int[] box = shape.cellBox(e);
+            for (int cy = box[1]; cy <= box[3]; cy++)
+                for (int cx = box[0]; cx <= box[2]; cx++) cellEdges[fill[cy * columns + cx]++] = e;
+        }
+        return new EdgeSpatialIndex(graph, minX, minY, cellSize, columns, rows, cellOffsets, cellEdges);
+    }
+
+    public RoadGraph graph() {
+        return graph;
+    }
+
+    /**
+     * @return the edge closest to (x, y) with the projection of the point onto it, or null if the graph has no edges
+     */
+    public Nearest nearest(double x, double y) {
+        if (graph.edgeCount() == 0) return null;
+        int centerX = column(x);
+        int centerY = row(y);
+        int maxRing = Math.max(Math.max(centerX, columns - 1 - centerX), Math.max(centerY, rows - 1 - centerY));
+
+        int bestEdge = -1;
+        double bestDistance2 = Double.POSITIVE_INFINITY;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int x0 = centerX - ring, x1 = centerX + ring;
+            int y0 = centerY - ring, y1 = centerY + ring;
+            for (int cy = Math.max(0, y0); cy <= Math.min(rows - 1, y1); cy++) {
+                boolean edgeRow = cy == y0 || cy == y1;
+                for (int cx = Math.max(0, x0); cx <= Math.min(columns - 1, x1); cx++) {
+                    // Only the border of the ring, the inside was scanned before
+                    if (!edgeRow && cx != x0 && cx != x1) continue;
+                    int cell = cy * columns + cx;
+                    for (int i = cellOffsets[cell], end = cellOffsets[cell + 1]; i < end; i++) {
+                        int e = cellEdges[i];
+                        double d2 = distanceSquared(e, x, y);
+                        if (d2 < bestDistance2 || (d2 == bestDistance2 && e < bestEdge)) {
+                            bestDistance2 = d2;
+                            bestEdge = e;
+                        }
+                    }
+                }
+            }
+            // Anything outside the scanned square is at least this far away
+            double reach = Math.min(
+                    Math.min(x - (minX + x0 * cellSize), minX + (x1 + 1) * cellSize - x),
+                    Math.min(y - (minY + y0 * cellSize), minY + (y1 + 1) * cellSize - y));
+            if (reach > 0 && bestDistance2 <= reach * reach) break;
+        }
+
+        return toNearest(bestEdge, x, y, bestDistance2);
+    }
+
+    /**
+     * Closest of the given edge and the edges sharing one of its nodes, for incremental matching of a moving
+     * position: without the grid it only looks at the roads the previous position could have led onto.
+     *
+     * @return the closest point among those edges, which need not be the closest edge of the whole graph
+     */
+    public Nearest nearestAround(int edge, double x, double y) {
+        int bestEdge = edge;
+        double bestDistance2 = distanceSquared(edge, x, y);
+        for (int side = 0; side < 2; side++) {
+            int node = side == 0 ? graph.edgeStart(edge) : graph.edgeEnd(edge);
+            for (int a = graph.firstOut(node), end = graph.endOut(node); a < end; a++) {
+                int e = graph.outEdge(a);
+                double d2 = distanceSquared(e, x, y);
+                if (d2 < bestDistance2) {
+                    bestDistance2 = d2;
+                    bestEdge = e;
+                }
+            }
+            // One-way edges leading into the node are only listed as incoming arcs
+            for (int a = graph.firstIn(node), end = graph.endIn(node); a < end; a++) {
+                int e = graph.inEdge(a);
+                double d2 = distanceSquared(e, x, y);
+                if (d2 < bestDistance2) {
+                    bestDistance2 = d2;
+                    bestEdge = e;
+                }
+            }
+        }
+        return toNearest(bestEdge, x, y, bestDistance2);
+    }
+
+    /**
+     * Position of the projection of (x, y) along the edge, clamped to [0, 1]; 0 for zero-length edges.
+     */
+    public double projection(int edge, double x, double y) {
+        int start = graph.edgeStart(edge), end = graph.edgeEnd(edge);
+        double x1 = graph.x(start), y1 = graph.y(start);
+        double dx = graph.x(end) - x1;
+        double dy = graph.y(end) - y1;
+        double len2 = dx * dx + dy * dy;
+        if (len2 == 0) return 0;
+        double t = ((x - x1) * dx + (y - y1) * dy) / len2;
+        return Math.max(0, Math.min(1, t));
+    }
+
+    private Nearest toNearest(int edge, double x, double y, double distance2) {
+        double t = projection(edge, x, y);
+        int start = graph.edgeStart(edge), end = graph.edgeEnd(edge);
+        double px = graph.x(start) + t * (graph.x(end) - graph.x(start));
+        double py = graph.y(start) + t * (graph.y(end) - graph.y(start));
+        return new Nearest(edge, t, px, py, Math.sqrt(distance2));
+    }
+
+    private double distanceSquared(int edge, double x, double y) {
+        double t = projection(edge, x, y);
+        int start = graph.edgeStart(edge), end = graph.edgeEnd(edge);
+        double px = graph.x(start) + t * (graph.x(end) - graph.x(start)) - x;
+        double py = graph.y(start) + t * (graph.y(end) - graph.y(start)) - y;
+        return px * px + py * py;
+    }
+
+    /**
+     * Inclusive cell range {minColumn, minRow, maxColumn, maxRow} covered by the edge's bounding box.
+     */
+    private int[] cellBox(int edge) {
+        int start = graph.edgeStart(edge), end = graph.edgeEnd(edge);
+        return new int[]{
+                column(Math.min(graph.x(start), graph.x(end))),
+                row(Math.min(graph.y(start), graph.y(end))),
+                column(Math.max(graph.x(start), graph.x(end))),
+                row(Math.max(graph.y(start), graph.y(end)))
+        };
+    }
+
+    private int column(double x) {
+        return (int) Math.max(0, Math.min(columns - 1, Math.floor((x - minX) / cellSize)));
+    }
+
+    private int row(double y) {
+        return (int) Math.max(0, Math.min(rows - 1, Math.floor((y - minY) / cellSize)));
+    }
+}
@@ -0,0 +1,52 @@
+package com.rss.core.map.graph;
+
+/**
+ * Replaceable travel-time cost per edge, for routing on live conditions. A search reads {@link #current()} once
+ * and keeps that vector to the end, so a concurrent {@link #publish} never mixes two vectors in one query.
+ */
+public final class EdgeWeights {
+    private final int edgeCount;
+    private final double minCostPerUnit;
+    private volatile double[] costs;
+
+    private EdgeWeights(double[] costs, double minCostPerUnit) {
+        this.edgeCount = costs.length;
+        this.costs = costs;
+        this.minCostPerUnit = minCostPerUnit;
+    }
+
+    /**
+     * Starts from travel time at the speed limit. Published costs may only be higher, so the fastest speed limit
+     * of the graph keeps bounding the cost per map unit.
+     */
+    public static EdgeWeights travelTime(RoadGraph graph) {
+        double[] times = new double[graph.edgeCount()];
+        int maxSpeed = 0;
+        for (int e = 0; e < times.length; e++) {
+            times[e] = graph.edgeTime(e);
+            maxSpeed = Math.max(maxSpeed, graph.edgeSpeed(e));
+        }
+        return new EdgeWeights(times, maxSpeed > 0 ? 1.0 / maxSpeed : 0);
+    }
+
+    public double[] current() {
+        return costs;
+    }
+
+    /**
+     * @return lower bound of the cost of one map unit of road, for straight-line heuristics
+     */
+    public double minCostPerUnit() {
+        return minCostPerUnit;
+    }
+
+    /**
+     * Replaces the cost vector; the array must not be modified afterwards. Costs below
+     * {@link #minCostPerUnit()} times the edge length would make straight-line bounds inadmissible.
+     */
+    public void publish(double[] costs) {
+        if (costs.length != edgeCount)
+            throw new IllegalArgumentException("Expected " + edgeCount + " edge costs, got " + costs.length);
+        this.costs = costs;
+    }
+}
@@ -0,0 +1,27 @@
+package com.rss.core.map.graph;
+
+/**
+ * Result of a graph search.
+ *
+ * @param nodes node indices from the chosen source to the reached target
+ * @param edges edge indices, {@code edges[i]} connects {@code nodes[i]} and {@code nodes[i + 1]}
+ * @param cost total length from the source up to the query's target point
+ * @param settledNodes number of nodes settled by the search, for diagnostics
+ * @param partial true if the search ran out of budget, so the path need not be the shortest. It ends at the settled
+ *                node closest to the target point instead of a target node, with cost counting the straight line
+ *                from there, unless the search already had a complete path
+ */
+public record GraphPath(int[] nodes, int[] edges, double cost, int settledNodes, boolean partial) {
+
+    public GraphPath(int[] nodes, int[] edges, double cost, int settledNodes) {
+        this(nodes, edges, cost, settledNodes, false);
+    }
+
+    public int source() {
+        return nodes[0];
+    }
+
+    public int target() {
+        return nodes[nodes.length - 1];
+    }
+}
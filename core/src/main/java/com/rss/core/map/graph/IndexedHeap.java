@@ -0,0 +1,100 @@
+package com.rss.core.map.graph;
+
+/**
+ * Indexed 4-ary min-heap over node indices [0, capacity) with decrease-key, so every node is queued at most once.
+ * A wider heap is shallower than a binary one and its children share a cache line, which suits the frequent
+ * decrease-key operations of road searches.
+ */
+final class IndexedHeap {
+    private final int[] nodes;
+    private final double[] keys;
+    // Heap slot of each node plus one, 0 when the node is not queued
+    private final int[] position;
+    private int size;
+
+    IndexedHeap(int capacity) {
+        nodes = new int[capacity];
+        keys = new double[capacity];
+        position = new int[capacity];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int node) {
+        return position[node] != 0;
+    }
+
+    /**
+     * Removes all entries; only touches the slots in use.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) position[nodes[i]] = 0;
+        size = 0;
+    }
+
+    /**
+     * Queues the node, or lowers its key if it is already queued with a larger one.
+     */
+    void push(int node, double key) {
+        int slot = position[node] - 1;
+        if (slot < 0) {
+            siftUp(size++, node, key);
+        } else if (key < keys[slot]) {
+            siftUp(slot, node, key);
+        }
+    }
+
+    double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Removes the minimum entry and returns its node.
+     */
+    int poll() {
+        int top = nodes[0];
+        position[top] = 0;
+        size--;
+        if (size > 0) siftDown(0, nodes[size], keys[size]);
+        return top;
+    }
+
+    private void siftUp(int i, int node, double key) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 2;
+            if (keys[parent] <= key) break;
+            move(parent, i);
+            i = parent;
+        }
+        place(i, node, key);
+    }
+
+    private void siftDown(int i, int node, double key) {
+        while (true) {
+            int first = 4 * i + 1;
+            if (first >= size) break;
+            int best = first;
+            for (int c = first + 1, end = Math.min(first + 4, size); c < end; c++) {
+                if (keys[c] < keys[best]) best = c;
+            }
+            if (key <= keys[best]) break;
+            move(best, i);
+            i = best;
+        }
+        place(i, node, key);
+    }
+
+    private void move(int from, int to) {
+        nodes[to] = nodes[from];
+        keys[to] = keys[from];
+        position[nodes[to]] = to + 1;
+    }
+
+    private void place(int i, int node, double key) {
+        nodes[i] = node;
+        keys[i] = key;
+        position[node] = i + 1;
+    }
+}
@@ -0,0 +1,124 @@
+package com.rss.core.map.graph;
+
+import java.util.Arrays;
+
+/**
+ * Landmark distances for the ALT heuristic (A*, Landmarks, Triangle inequality).
+ * For every landmark L the exact distances L -> v and v -> L are stored for all nodes, which yields the
+ * lower bound d(v, t) >= max(d(L, t) - d(L, v), d(v, L) - d(t, L)).
+ */
+public final class Landmarks {
+    private final RoadGraph graph;
+    private final int[] landmarks;
+    // Flattened [landmark * nodeCount + node]
+    private final double[] fromLandmark;
+    private final double[] toLandmark;
+
+    private Landmarks(RoadGraph graph, int[] landmarks, double[] fromLandmark, double[] toLandmark) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * Picks up to {@code count} landmarks by farthest-first selection: the first is the node farthest from the
+     * map centre, each next one maximizes its road distance to the landmarks chosen so far.
+     */
+    public static Landmarks select(RoadGraph graph, int count) {
+        int n = graph.nodeCount();
+        int k = Math.max(0, Math.min(count, n));
+        int[] chosen = new int[k];
+        double[] from = new double[k * n];
+        double[] to = new double[k * n];
+        if (k == 0) return new Landmarks(graph, chosen, from, to);
+
+        double cx = 0, cy = 0;
+        for (int v = 0; v < n; v++) {
+            cx += graph.x(v);
+            cy += graph.y(v);
+        }
+        cx /= n;
+        cy /= n;
+        int next = 0;
+        for (int v = 1; v < n; v++) {
+            if (graph.distance(v, cx, cy) > graph.distance(next, cx, cy)) next = v;
+        }
+
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        for (int l = 0; l < k; l++) {
+            chosen[l] = next;
+            shortestPaths(graph, next, false, from, l * n);
+            shortestPaths(graph, next, true, to, l * n);
+
+            next = -1;
+            double farthest = -1;
+            for (int v = 0; v < n; v++) {
+                double d = from[l * n + v];
+                if (d < nearest[v]) nearest[v] = d;
+                if (nearest[v] != Double.POSITIVE_INFINITY && nearest[v] > farthest) {
+                    farthest = nearest[v];
+                    next = v;
+                }
+            }
+            if (next < 0 || farthest == 0) return new Landmarks(graph, Arrays.copyOf(chosen, l + 1),
+                    Arrays.copyOf(from, (l + 1) * n), Arrays.copyOf(to, (l + 1) * n));
+        }
+        return new Landmarks(graph, chosen, from, to);
+    }
+
+    public RoadGraph graph() {
+        return graph;
+    }
+
+    public int count() {
+        return landmarks.length;
+    }
+
+    public int landmark(int index) {
+        return landmarks[index];
+    }
+
+    /**
+     * Lower bound on the road distance from v to t, 0 when no landmark gives information.
+     */
+    public double lowerBound(int v, int t) {
+        int n = graph.nodeCount();
+        double best = 0;
+        for (int l = 0, base = 0; l < landmarks.length; l++, base += n) {
+            double lt = fromLandmark[base + t], lv = fromLandmark[base + v];
+            if (lt != Double.POSITIVE_INFINITY && lv != Double.POSITIVE_INFINITY && lt - lv > best) best = lt - lv;
+            double vl = toLandmark[base + v], tl = toLandmark[base + t];
+            if (vl != Double.POSITIVE_INFINITY && tl != Double.POSITIVE_INFINITY && vl - tl > best) best = vl - tl;
+        }
+        return best;
+    }
+
+    /**
+     * Plain Dijkstra from {@code source} over forward arcs, or over reverse arcs to get distances towards it.
+     */
+    private static void shortestPaths(RoadGraph graph, int source, boolean reverse, double[] dist, int offset) {
+        int n = graph.nodeCount();
+        Arrays.fill(dist, offset, offset + n, Double.POSITIVE_INFINITY);
+        MinHeap heap = new MinHeap(n);
+        dist[offset + source] = 0;
+        heap.push(source, 0);
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int u = heap.poll();
+            if (key > dist[offset + u]) continue;
+            int first = reverse ? graph.firstIn(u) : graph.firstOut(u);
+            int end = reverse ? graph.endIn(u) : graph.endOut(u);
+            for (int a = first; a < end; a++) {
+                int v = reverse ? graph.inTail(a) : graph.outHead(a);
+                int e = reverse ? graph.inEdge(a) : graph.outEdge(a);
+                double d = key + graph.edgeLength(e);
+                if (d < dist[offset + v]) {
+                    dist[offset + v] = d;
+                    heap.push(v, d);
+                }
+            }
+        }
+    }
+}
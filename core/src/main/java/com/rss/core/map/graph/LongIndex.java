@@ -0,0 +1,53 @@
+package com.rss.core.map.graph;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity open-addressing map from long ids to dense indices, without boxing or entry objects.
+ */
+final class LongIndex {
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+
+    /**
+     * @param expected number of keys, the table is sized for a load factor of at most one half
+     */
+    LongIndex(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(1, expected) * 4 - 1);
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, -1);
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return the index already stored for the key, or -1 if the given index was stored
+     */
+    int putIfAbsent(long key, int value) {
+        int slot = slot(key);
+        while (values[slot] >= 0) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        return -1;
+    }
+
+    /**
+     * @return the index stored for the key, or -1 if absent
+     */
+    int get(long key) {
+        int slot = slot(key);
+        while (values[slot] >= 0) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
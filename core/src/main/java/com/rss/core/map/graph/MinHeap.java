@@ -0,0 +1,72 @@
+package com.rss.core.map.graph;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of (key, node) pairs backed by primitive arrays.
+ * Duplicates are allowed; callers skip stale entries when polling (lazy deletion).
+ */
+final class MinHeap {
+    private double[] keys;
+    private int[] nodes;
+    private int size;
+
+    MinHeap(int capacity) {
+        keys = new double[Math.max(capacity, 16)];
+        nodes = new int[keys.length];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void push(int node, double key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            nodes = Arrays.copyOf(nodes, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            keys[i] = keys[parent];
+            nodes[i] = nodes[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        nodes[i] = node;
+    }
+
+    double peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Removes the minimum entry and returns its node.
+     */
+    int poll() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            double key = keys[size];
+            int node = nodes[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (key <= keys[child]) break;
+                keys[i] = keys[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+        return top;
+    }
+}
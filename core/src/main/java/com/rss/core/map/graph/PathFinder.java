@@ -0,0 +1,12 @@
+package com.rss.core.map.graph;
+
+/**
+ * Point-to-point routing strategy over a {@link RoadGraph}.
+ */
+public interface PathFinder {
+
+    /**
+     * @return the shortest path from any query source to any query target, or null if none is reachable
+     */
+    GraphPath findPath(RouteQuery query);
+}
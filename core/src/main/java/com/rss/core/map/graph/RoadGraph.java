@@ -0,0 +1,254 @@
+package com.rss.core.map.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable road network in compressed sparse row (CSR) form.
+ * Nodes and edges are addressed by dense indices; database ids are only used at the boundaries.
+ * Two-way edges contribute an arc in both directions, one-way edges only from start to end node.
+ */
+public final class RoadGraph {
+
+    // Nodes
+    private final long[] nodeIds;
+    private final double[] nodeX;
+    private final double[] nodeY;
+    private final LongIndex nodeIndex;
+
+    // Edges
+    private final long[] edgeIds;
+    private final String[] edgeNames;
+    private final int[] edgeStart;
+    private final int[] edgeEnd;
+    private final int[] edgeSpeed;
+    private final boolean[] edgeOneWay;
+    private final double[] edgeLength;
+    private final double[] edgeTime;
+    private final LongIndex edgeIndex;
+
+    // Forward adjacency: arcs leaving a node
+    private final int[] outOffsets;
+    private final int[] outHead;
+    private final int[] outEdge;
+
+    // Reverse adjacency: arcs entering a node
+    private final int[] inOffsets;
+    private final int[] inTail;
+    private final int[] inEdge;
+
+    private RoadGraph(long[] nodeIds, double[] nodeX, double[] nodeY, long[] edgeIds, String[] edgeNames,
+                      int[] edgeStart, int[] edgeEnd, int[] edgeSpeed, boolean[] edgeOneWay) {
+        int n = nodeIds.length;
+        int m = edgeIds.length;
+        if (nodeX.length != n || nodeY.length != n)
+            throw new IllegalArgumentException("Node arrays differ in length");
+        if (edgeNames.length != m || edgeStart.length != m || edgeEnd.length != m || edgeSpeed.length != m
+                || edgeOneWay.length != m)
+            throw new IllegalArgumentException("Edge arrays differ in length");
+
+        this.nodeIds = nodeIds;
+        this.nodeX = nodeX;
+        this.nodeY = nodeY;
+        nodeIndex = new LongIndex(n);
+        for (int i = 0; i < n; i++) {
+            if (nodeIndex.putIfAbsent(nodeIds[i], i) >= 0)
+                throw new IllegalArgumentException("Duplicate node id " + nodeIds[i]);
+        }
+
+        this.edgeIds = edgeIds;
+        this.edgeNames = edgeNames;
+        this.edgeStart = edgeStart;
+        this.edgeEnd = edgeEnd;
+        this.edgeSpeed = edgeSpeed;
+        this.edgeOneWay = edgeOneWay;
+        edgeLength = new double[m];
+        edgeTime = new double[m];
+        edgeIndex = new LongIndex(m);
+        for (int e = 0; e < m; e++) {
+            if (edgeStart[e] < 0 || edgeStart[e] >= n || edgeEnd[e] < 0 || edgeEnd[e] >= n)
+                throw new IllegalArgumentException("Edge " + edgeIds[e] + " references unknown node");
+            double dx = nodeX[edgeEnd[e]] - nodeX[edgeStart[e]];
+            double dy = nodeY[edgeEnd[e]] - nodeY[edgeStart[e]];
+            edgeLength[e] = Math.sqrt(dx * dx + dy * dy);
+            edgeTime[e] = edgeSpeed[e] > 0 ? edgeLength[e] / edgeSpeed[e] : Double.POSITIVE_INFINITY;
+            edgeIndex.putIfAbsent(edgeIds[e], e);
+        }
+
+        // Count arcs per node, then prefix-sum into offsets
+        outOffsets = new int[n + 1];
+        inOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            outOffsets[edgeStart[e] + 1]++;
+            inOffsets[edgeEnd[e] + 1]++;
+            if (!edgeOneWay[e]) {
+                outOffsets[edgeEnd[e] + 1]++;
+                inOffsets[edgeStart[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+
+        int arcs = outOffsets[n];
+        outHead = new int[arcs];
+        outEdge = new int[arcs];
+        inTail = new int[arcs];
+        inEdge = new int[arcs];
+        int[] outFill = Arrays.copyOf(outOffsets, n);
+        int[] inFill = Arrays.copyOf(inOffsets, n);
+        for (int e = 0; e < m; e++) {
+            int u = edgeStart[e], v = edgeEnd[e];
+            int a = outFill[u]++;
+            outHead[a] = v;
+            outEdge[a] = e;
+            a = inFill[v]++;
+            inTail[a] = u;
+            inEdge[a] = e;
+            if (!edgeOneWay[e]) {
+                a = outFill[v]++;
+                outHead[a] = u;
+                outEdge[a] = e;
+                a = inFill[u]++;
+                inTail[a] = v;
+                inEdge[a] = e;
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Wraps ready-made arrays without copying them, for loaders that already hold the graph in columnar form.
+     * Edge ends are node indices; the arrays must not be modified afterwards.
+     */
+    public static RoadGraph of(long[] nodeIds, double[] nodeX, double[] nodeY, long[] edgeIds, String[] edgeNames,
+                               int[] edgeStart, int[] edgeEnd, int[] edgeSpeed, boolean[] edgeOneWay) {
+        return new RoadGraph(nodeIds, nodeX, nodeY, edgeIds, edgeNames, edgeStart, edgeEnd, edgeSpeed, edgeOneWay);
+    }
+
+    public int nodeCount() { return nodeIds.length; }
+    public int edgeCount() { return edgeIds.length; }
+    public int arcCount() { return outHead.length; }
+
+    public long nodeId(int node) { return nodeIds[node]; }
+    public double x(int node) { return nodeX[node]; }
+    public double y(int node) { return nodeY[node]; }
+
+    /**
+     * @return dense index of the node with the given database id, or -1 if absent
+     */
+    public int indexOfNode(long nodeId) {
+        return nodeIndex.get(nodeId);
+    }
+
+    public long edgeId(int edge) { return edgeIds[edge]; }
+    public String edgeName(int edge) { return edgeNames[edge]; }
+    public int edgeStart(int edge) { return edgeStart[edge]; }
+    public int edgeEnd(int edge) { return edgeEnd[edge]; }
+    public int edgeSpeed(int edge) { return edgeSpeed[edge]; }
+    public boolean isOneWay(int edge) { return edgeOneWay[edge]; }
+    public double edgeLength(int edge) { return edgeLength[edge]; }
+
+    /**
+     * @return time to traverse the edge at its speed limit, infinite for edges without a positive speed
+     */
+    public double edgeTime(int edge) { return edgeTime[edge]; }
+
+    /**
+     * @return dense index of the edge with the given database id, or -1 if absent
+     */
+    public int indexOfEdge(long edgeId) {
+        return edgeIndex.get(edgeId);
+    }
+
+    // Forward arcs of node v are [firstOut(v), endOut(v))
+    public int firstOut(int node) { return outOffsets[node]; }
+    public int endOut(int node) { return outOffsets[node + 1]; }
+    public int outHead(int arc) { return outHead[arc]; }
+    public int outEdge(int arc) { return outEdge[arc]; }
+
+    // Reverse arcs of node v are [firstIn(v), endIn(v))
+    public int firstIn(int node) { return inOffsets[node]; }
+    public int endIn(int node) { return inOffsets[node + 1]; }
+    public int inTail(int arc) { return inTail[arc]; }
+    public int inEdge(int arc) { return inEdge[arc]; }
+
+    public double distance(int node, double x, double y) {
+        double dx = nodeX[node] - x;
+        double dy = nodeY[node] - y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public static final class Builder {
+        private final List<Long> nodeIds = new ArrayList<>();
+        private final List<Double> nodeX = new ArrayList<>();
+        private final List<Double> nodeY = new ArrayList<>();
+        private final Map<Long, Integer> nodeIndex = new HashMap<>();
+
+        private final List<Long> edgeIds = new ArrayList<>();
+        private final List<String> edgeNames = new ArrayList<>();
+        private final List<Integer> edgeStart = new ArrayList<>();
+        private final List<Integer> edgeEnd = new ArrayList<>();
+        private final List<Integer> edgeSpeed = new ArrayList<>();
+        private final List<Boolean> edgeOneWay = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder addNode(long id, double x, double y) {
+            if (nodeIndex.putIfAbsent(id, nodeIds.size()) != null)
+                throw new IllegalArgumentException("Duplicate node id " + id);
+            nodeIds.add(id);
+            nodeX.add(x);
+            nodeY.add(y);
+            return this;
+        }
+
+        public Builder addEdge(long id, String name, long startNodeId, long endNodeId, int speed, boolean oneWay) {
+            Integer start = nodeIndex.get(startNodeId);
+            Integer end = nodeIndex.get(endNodeId);
+            if (start == null || end == null)
+                throw new IllegalArgumentException("Edge " + id + " references unknown node");
+            edgeIds.add(id);
+            edgeNames.add(name);
+            edgeStart.add(start);
+            edgeEnd.add(end);
+            edgeSpeed.add(speed);
+            edgeOneWay.add(oneWay);
+            return this;
+        }
+
+        public RoadGraph build() {
+            int n = nodeIds.size();
+            int m = edgeIds.size();
+            long[] ids = new long[n];
+            double[] x = new double[n];
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = nodeIds.get(i);
+                x[i] = nodeX.get(i);
+                y[i] = nodeY.get(i);
+            }
+            long[] eIds = new long[m];
+            int[] start = new int[m];
+            int[] end = new int[m];
+            int[] speed = new int[m];
+            boolean[] oneWay = new boolean[m];
+            for (int e = 0; e < m; e++) {
+                eIds[e] = edgeIds.get(e);
+                start[e] = edgeStart.get(e);
+                end[e] = edgeEnd.get(e);
+                speed[e] = edgeSpeed.get(e);
+                oneWay[e] = edgeOneWay.get(e);
+            }
+            return new RoadGraph(ids, x, y, eIds, edgeNames.toArray(new String[0]), start, end, speed, oneWay);
+        }
+    }
+}
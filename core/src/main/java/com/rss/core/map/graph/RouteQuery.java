@@ -0,0 +1,26 @@
+package com.rss.core.map.graph;
+
+/**
+ * A multi-source, multi-target route query on a {@link RoadGraph}.
+ * Sources are seeded with zero cost; reaching a target node costs the straight-line
+ * leg from that node to the target point (the destination projection on its edge).
+ *
+ * @param sources node indices to start from (both ends of the snapped start edge)
+ * @param targets node indices accepted as goal (both ends of the snapped target edge)
+ * @param targetX x coordinate of the target point
+ * @param targetY y coordinate of the target point
+ * @param budget limits of the search
+ */
+public record RouteQuery(int[] sources, int[] targets, double targetX, double targetY, SearchBudget budget) {
+
+    public RouteQuery(int[] sources, int[] targets, double targetX, double targetY) {
+        this(sources, targets, targetX, targetY, SearchBudget.UNLIMITED);
+    }
+
+    public boolean isTarget(int node) {
+        for (int t : targets) {
+            if (t == node) return true;
+        }
+        return false;
+    }
+}
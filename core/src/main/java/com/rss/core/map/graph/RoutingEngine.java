@@ -0,0 +1,17 @@
+package com.rss.core.map.graph;
+
+/**
+ * Routing engines selectable through {@code map.routing.engine}.
+ */
+public enum RoutingEngine {
+    /** Plain A* on the road graph, no preprocessing. */
+    ASTAR,
+    /** A* with landmark (ALT) lower bounds, landmark distances precomputed after the map is loaded. */
+    ALT,
+    /** Bidirectional A* meeting in the middle, no preprocessing. */
+    BIDIRECTIONAL,
+    /** A* with chains of degree-2 nodes collapsed into single arcs, compressed after the map is loaded. */
+    CHAINS,
+    /** Contraction Hierarchies, preprocessed after the map is loaded. */
+    CH
+}
@@ -0,0 +1,32 @@
+package com.rss.core.map.graph;
+
+/**
+ * Limits of one route search: a number of settled nodes and a wall-clock deadline. A search that runs out of
+ * budget returns the path to the settled node closest to the target point, flagged {@link GraphPath#partial()}.
+ * The A* engines honour it; contraction hierarchy queries are bounded by their preprocessing and ignore it.
+ *
+ * @param maxSettledNodes settled nodes after which the search gives up
+ * @param deadlineNanos {@link System#nanoTime()} after which the search gives up
+ */
+public record SearchBudget(int maxSettledNodes, long deadlineNanos) {
+    public static final SearchBudget UNLIMITED = new SearchBudget(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    // The clock is read once per this many settled nodes
+    private static final int CLOCK_INTERVAL = 64;
+
+    /**
+     * @param maxSettledNodes settled node limit, 0 or less for none
+     * @param timeoutMillis time limit from now, 0 or less for none
+     */
+    public static SearchBudget of(int maxSettledNodes, long timeoutMillis) {
+        return new SearchBudget(
+                maxSettledNodes > 0 ? maxSettledNodes : Integer.MAX_VALUE,
+                timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1_000_000 : Long.MAX_VALUE);
+    }
+
+    public boolean isExhausted(int settledNodes) {
+        if (settledNodes >= maxSettledNodes) return true;
+        return deadlineNanos != Long.MAX_VALUE && settledNodes % CLOCK_INTERVAL == 0
+                && System.nanoTime() - deadlineNanos >= 0;
+    }
+}
@@ -0,0 +1,96 @@
+package com.rss.core.map.graph;
+
+import java.util.Arrays;
+
+/**
+ * State of one search direction over all nodes of a graph, reusable across queries.
+ * Entries carry the generation they were written in, so starting a new query is O(1): anything stamped with an
+ * older generation reads as unreached, unsettled and unmarked without clearing the arrays.
+ */
+final class SearchSpace {
+    private final double[] dist;
+    private final double[] aux;
+    private final int[] parentNode;
+    private final int[] parentEdge;
+    private final int[] reached;
+    private final int[] settled;
+    private final int[] marked;
+    private int generation;
+
+    final IndexedHeap heap;
+
+    SearchSpace(int nodeCount) {
+        dist = new double[nodeCount];
+        aux = new double[nodeCount];
+        parentNode = new int[nodeCount];
+        parentEdge = new int[nodeCount];
+        reached = new int[nodeCount];
+        settled = new int[nodeCount];
+        marked = new int[nodeCount];
+        heap = new IndexedHeap(nodeCount);
+    }
+
+    /**
+     * Forgets the previous query.
+     */
+    void reset() {
+        heap.clear();
+        if (++generation == Integer.MAX_VALUE) {
+            // Stamps would wrap around; clear them once every 2^31 queries
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            Arrays.fill(marked, 0);
+            generation = 1;
+        }
+    }
+
+    double dist(int node) {
+        return reached[node] == generation ? dist[node] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Secondary value carried along with the distance, e.g. travel time on the shortest-length path.
+     */
+    double aux(int node) {
+        return aux[node];
+    }
+
+    int parentNode(int node) {
+        return parentNode[node];
+    }
+
+    int parentEdge(int node) {
+        return parentEdge[node];
+    }
+
+    /**
+     * Records a better distance for the node; parents are -1 for search origins.
+     */
+    void update(int node, double distance, int viaNode, int viaEdge) {
+        reached[node] = generation;
+        dist[node] = distance;
+        parentNode[node] = viaNode;
+        parentEdge[node] = viaEdge;
+    }
+
+    void update(int node, double distance, double auxValue, int viaNode, int viaEdge) {
+        update(node, distance, viaNode, viaEdge);
+        aux[node] = auxValue;
+    }
+
+    boolean isSettled(int node) {
+        return settled[node] == generation;
+    }
+
+    void settle(int node) {
+        settled[node] = generation;
+    }
+
+    boolean isMarked(int node) {
+        return marked[node] == generation;
+    }
+
+    void mark(int node) {
+        marked[node] = generation;
+    }
+}
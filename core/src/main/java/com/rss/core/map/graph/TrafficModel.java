@@ -0,0 +1,162 @@
+package com.rss.core.map.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Observed speed per edge, estimated from consecutive positions of each driver.
+ * <p>
+ * A position is matched to an edge, by the caller or here to its nearest edge. When the previous position of
+ * the same driver lies on the same edge, or on an edge sharing a node with it, the distance along the road
+ * between the two divided by the elapsed time is one speed observation for the edges involved. Pairs further apart, too close in time or
+ * too old are skipped rather than guessed. Each edge keeps an exponentially weighted estimate whose
+ * observations fade back towards the speed limit with time constant {@code decayMillis}, so an edge nobody
+ * drove on recently counts as free-flowing. A matched update costs one hash lookup and a few array writes.
+ * <p>
+ * Not thread-safe; meant to be fed and read by a single aggregating thread.
+ */
+public final class TrafficModel {
+    // Weight of a new observation against the decayed estimate
+    private static final double ALPHA = 0.3;
+    // Observations are kept between this share of the speed limit and the limit itself
+    private static final double MIN_SPEED_FACTOR = 0.1;
+    private static final long MIN_INTERVAL_MILLIS = 200;
+    private static final long MAX_INTERVAL_MILLIS = 30_000;
+    // Positions further from any road are off the network (parking lots, GPS noise) and reset the driver
+    private static final double MAX_SNAP_DISTANCE = 10;
+    // Below this distance the driver is standing still (waiting for a rider, parked), which says nothing about
+    // the road
+    private static final double MIN_DISTANCE = 0.5;
+
+    private final RoadGraph graph;
+    private final EdgeSpatialIndex index;
+    private final double decayMillis;
+    private final double[] speed;
+    private final long[] observedAt;
+    private final Map<Long, Position> positions = new HashMap<>();
+
+    private static final class Position {
+        int edge;
+        double t;
+        long at;
+    }
+
+    public TrafficModel(RoadGraph graph, EdgeSpatialIndex index, long decayMillis) {
+        this.graph = graph;
+        this.index = index;
+        this.decayMillis = Math.max(1, decayMillis);
+        this.speed = new double[graph.edgeCount()];
+        this.observedAt = new long[graph.edgeCount()];
+        for (int e = 0; e < speed.length; e++) speed[e] = graph.edgeSpeed(e);
+    }
+
+    /**
+     * Feeds one driver position; positions must arrive in time order per driver, older ones are ignored.
+     *
+     * @return true if the position produced a speed observation
+     */
+    public boolean observe(long driverId, double x, double y, long timestampMillis) {
+        EdgeSpatialIndex.Nearest nearest = index.nearest(x, y);
+        if (nearest == null) {
+            positions.remove(driverId);
+            return false;
+        }
+        return observe(driverId, nearest.edge(), nearest.t(), nearest.distance(), timestampMillis);
+    }
+
+    /**
+     * Feeds one driver position already matched to an edge, see {@link #observe(long, double, double, long)}.
+     *
+     * @param distance distance of the original position from the edge
+     */
+    public boolean observe(long driverId, int edge, double t, double distance, long timestampMillis) {
+        if (distance > MAX_SNAP_DISTANCE) {
+            positions.remove(driverId);
+            return false;
+        }
+
+        Position last = positions.get(driverId);
+        if (last == null) {
+            last = new Position();
+            positions.put(driverId, last);
+        } else if (timestampMillis <= last.at) {
+            return false;
+        } else {
+            long elapsed = timestampMillis - last.at;
+            // Too soon to measure: keep the older position and wait for a later one
+            if (elapsed < MIN_INTERVAL_MILLIS) return false;
+            double travelled = alongRoad(last.edge, last.t, edge, t);
+            // NaN (not adjacent) fails both comparisons
+            if (elapsed <= MAX_INTERVAL_MILLIS && travelled >= MIN_DISTANCE) {
+                double observed = travelled * 1000 / elapsed;
+                record(edge, observed, timestampMillis);
+                if (last.edge != edge) record(last.edge, observed, timestampMillis);
+                move(last, edge, t, timestampMillis);
+                return true;
+            }
+        }
+        move(last, edge, t, timestampMillis);
+        return false;
+    }
+
+    /**
+     * @return estimated speed of the edge at the given time, the speed limit without recent observations
+     */
+    public double speed(int edge, long nowMillis) {
+        double limit = graph.edgeSpeed(edge);
+        if (observedAt[edge] == 0 || limit <= 0) return limit;
+        double weight = Math.exp(-Math.max(0, nowMillis - observedAt[edge]) / decayMillis);
+        return limit + (speed[edge] - limit) * weight;
+    }
+
+    /**
+     * @return a new vector of travel times at the estimated speeds, never below the time at the speed limit
+     */
+    public double[] travelTimes(long nowMillis) {
+        double[] times = new double[speed.length];
+        for (int e = 0; e < times.length; e++) {
+            times[e] = graph.edgeSpeed(e) <= 0 ? graph.edgeTime(e) : graph.edgeLength(e) / speed(e, nowMillis);
+        }
+        return times;
+    }
+
+    /**
+     * @return number of drivers with a remembered position
+     */
+    public int trackedDrivers() {
+        return positions.size();
+    }
+
+    private void record(int edge, double observed, long at) {
+        double limit = graph.edgeSpeed(edge);
+        if (limit <= 0) return;
+        observed = Math.max(MIN_SPEED_FACTOR * limit, Math.min(limit, observed));
+        double prior = speed(edge, at);
+        speed[edge] = prior + ALPHA * (observed - prior);
+        observedAt[edge] = at;
+    }
+
+    // Road distance between two positions on the same or on adjacent edges, NaN otherwise
+    private double alongRoad(int fromEdge, double fromT, int toEdge, double toT) {
+        if (fromEdge == toEdge) return Math.abs(toT - fromT) * graph.edgeLength(toEdge);
+        int shared = sharedNode(fromEdge, toEdge);
+        if (shared < 0) return Double.NaN;
+        double fromLeg = (shared == graph.edgeStart(fromEdge) ? fromT : 1 - fromT) * graph.edgeLength(fromEdge);
+        double toLeg = (shared == graph.edgeStart(toEdge) ? toT : 1 - toT) * graph.edgeLength(toEdge);
+        return fromLeg + toLeg;
+    }
+
+    private int sharedNode(int a, int b) {
+        int aStart = graph.edgeStart(a), aEnd = graph.edgeEnd(a);
+        int bStart = graph.edgeStart(b), bEnd = graph.edgeEnd(b);
+        if (aEnd == bStart || aEnd == bEnd) return aEnd;
+        if (aStart == bStart || aStart == bEnd) return aStart;
+        return -1;
+    }
+
+    private static void move(Position position, int edge, double t, long at) {
+        position.edge = edge;
+        position.t = t;
+        position.at = at;
+    }
+}
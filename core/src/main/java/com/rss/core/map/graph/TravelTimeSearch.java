@@ -0,0 +1,98 @@
+package com.rss.core.map.graph;
+
+/**
+ * One-to-many travel times towards a single target: one Dijkstra over reverse arcs, weighted by travel time at
+ * the speed limit or by live {@link EdgeWeights}, that stops as soon as every origin's edge ends are settled.
+ * Keep one instance per graph, its search workspaces are pooled.
+ */
+public final class TravelTimeSearch {
+    private final RoadGraph graph;
+    private final EdgeWeights weights;
+    private final WorkspacePool workspaces;
+
+    public TravelTimeSearch(RoadGraph graph) {
+        this(graph, EdgeWeights.travelTime(graph));
+    }
+
+    public TravelTimeSearch(RoadGraph graph, EdgeWeights weights) {
+        this.graph = graph;
+        this.weights = weights;
+        this.workspaces = new WorkspacePool(graph.nodeCount());
+    }
+
+    /**
+     * @return travel time from each origin to the target, infinite where the target cannot be reached
+     */
+    public double[] timesTo(EdgePosition target, EdgePosition[] origins) {
+        WorkspacePool.Workspace workspace = workspaces.acquire();
+        try {
+            return timesTo(target, origins, weights.current(), workspace.backward);
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    // Required nodes are marked in the search space
+    private double[] timesTo(EdgePosition target, EdgePosition[] origins, double[] time, SearchSpace space) {
+        IndexedHeap heap = space.heap;
+
+        // Origins leave their edge towards the end node, or towards the start node on two-way edges
+        int remaining = 0;
+        for (EdgePosition origin : origins) {
+            int e = origin.edge();
+            if (!space.isMarked(graph.edgeEnd(e))) {
+                space.mark(graph.edgeEnd(e));
+                remaining++;
+            }
+            if (!graph.isOneWay(e) && !space.isMarked(graph.edgeStart(e))) {
+                space.mark(graph.edgeStart(e));
+                remaining++;
+            }
+        }
+
+        // The target is reached along its edge from the start node, or against it from the end node
+        int e = target.edge();
+        seed(space, graph.edgeStart(e), target.t() * time[e]);
+        if (!graph.isOneWay(e)) seed(space, graph.edgeEnd(e), (1 - target.t()) * time[e]);
+
+        while (remaining > 0 && !heap.isEmpty()) {
+            double key = heap.peekKey();
+            int u = heap.poll();
+            space.settle(u);
+            if (space.isMarked(u)) remaining--;
+
+            for (int a = graph.firstIn(u), end = graph.endIn(u); a < end; a++) {
+                int v = graph.inTail(a);
+                if (space.isSettled(v)) continue;
+                int edge = graph.inEdge(a);
+                double t = key + time[edge];
+                if (t < space.dist(v)) {
+                    space.update(v, t, u, edge);
+                    heap.push(v, t);
+                }
+            }
+        }
+
+        double[] result = new double[origins.length];
+        for (int i = 0; i < origins.length; i++) {
+            int f = origins[i].edge();
+            double t = origins[i].t();
+            double best = (1 - t) * time[f] + space.dist(graph.edgeEnd(f));
+            if (!graph.isOneWay(f)) best = Math.min(best, t * time[f] + space.dist(graph.edgeStart(f)));
+            // Same edge: drive straight to the target if the direction allows it
+            if (f == e) {
+                double delta = target.t() - t;
+                if (delta >= 0 || !graph.isOneWay(f)) best = Math.min(best, Math.abs(delta) * time[f]);
+            }
+            result[i] = best;
+        }
+        return result;
+    }
+
+    private static void seed(SearchSpace space, int v, double t) {
+        if (t < space.dist(v)) {
+            space.update(v, t, -1, -1);
+            space.heap.push(v, t);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.rss.core.map.graph;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of forward/backward {@link SearchSpace} pairs for one graph size.
+ * A pool rather than a ThreadLocal: route requests may run on virtual threads, which would each get a fresh
+ * workspace. Spaces are allocated on demand and up to {@code maxIdle} of them are kept after use.
+ */
+final class WorkspacePool {
+    private static final int DEFAULT_MAX_IDLE = 256;
+
+    private final int nodeCount;
+    private final int maxIdle;
+    private final ConcurrentLinkedDeque<Workspace> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * Search state for one query; hand it back with {@link #release(Workspace)} when done.
+     */
+    static final class Workspace {
+        final SearchSpace forward;
+        final SearchSpace backward;
+
+        private Workspace(int nodeCount) {
+            forward = new SearchSpace(nodeCount);
+            backward = new SearchSpace(nodeCount);
+        }
+    }
+
+    WorkspacePool(int nodeCount) {
+        this(nodeCount, DEFAULT_MAX_IDLE);
+    }
+
+    WorkspacePool(int nodeCount, int maxIdle) {
+        this.nodeCount = nodeCount;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * @return a workspace with both directions reset
+     */
+    Workspace acquire() {
+        Workspace workspace = idle.pollFirst();
+        if (workspace == null) {
+            workspace = new Workspace(nodeCount);
+        } else {
+            idleCount.decrementAndGet();
+        }
+        workspace.forward.reset();
+        workspace.backward.reset();
+        return workspace;
+    }
+
+    void release(Workspace workspace) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            // Most recently used first, its arrays are the likeliest to still be cached
+            idle.offerFirst(workspace);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
@@ -2,8 +2,12 @@ package com.rss.core.map.repository;
 
 import com.rss.core.map.entity.PolygonArea;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
-public interface PolygonRepository extends JpaRepository<PolygonArea, Long> {
-}
+import java.util.List;
 
+public interface PolygonRepository extends JpaRepository<PolygonArea, Long> {
 
+    @Query("SELECT DISTINCT p FROM PolygonArea p LEFT JOIN FETCH p.points pt ORDER BY p.id, pt.id")
+    List<PolygonArea> findAllWithPoints();
+}
@@ -0,0 +1,332 @@
+package com.rss.core.map.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.rss.core.map.entity.Edge;
+import com.rss.core.map.entity.PolygonArea;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streams a map file into the database without building a JSON tree or loading entities.
+ * <p>
+ * The file is read three times with a streaming parser: first for the node bounds used for normalization,
+ * then for nodes and polygons, then for edges, so edges never reference a node that is not inserted yet
+ * whatever the key order of the file. Rows are written with batched JDBC inserts using the ids from the
+ * file for nodes and edges, which keeps only the bounds, the ids seen so far and the current batch in memory.
+ * Missing or duplicate ids and edges to unknown nodes are rejected while parsing with an
+ * {@link IllegalArgumentException}, which rolls the surrounding transaction back.
+ */
+@Slf4j
+@Component
+public class MapImporter {
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonFactory jsonFactory;
+
+    @Value("${map.longitude}")
+    private Integer DEFAULT_LONGITUDE;
+
+    @Value("${map.latitude}")
+    private Integer DEFAULT_LATITUDE;
+
+    @Value("${map.edge.speed}")
+    private Integer DEFAULT_EDGE_SPEED;
+
+    public MapImporter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonFactory = new JsonFactory();
+    }
+
+    /**
+     * Counts of imported rows.
+     */
+    public record ImportResult(int nodes, int edges, int polygons, int polygonPoints) {
+    }
+
+    /**
+     * Original node coordinate bounds and the derived scale to the configured map size.
+     */
+    private record Bounds(long minX, long minY, long maxX, long maxY, int nodes) {
+        double scaleX(int size) {
+            return maxX == minX ? 0d : (double) size / (double) (maxX - minX);
+        }
+
+        double scaleY(int size) {
+            return maxY == minY ? 0d : (double) size / (double) (maxY - minY);
+        }
+    }
+
+    /**
+     * @return the top-level {@code version} of the map file, or null if it has none
+     */
+    public String readVersion(Resource resource) throws IOException {
+        try (JsonParser parser = open(resource)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("version".equals(field)) return parser.getValueAsString();
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the persisted map (nodes, edges, polygons) with the content of the file.
+     * Meant to run inside a transaction; call {@link #resetIdentities()} after it commits.
+     *
+     * @return the imported counts, or null if the file has no nodes and nothing was changed
+     */
+    public ImportResult importMap(Resource resource) throws IOException {
+        Bounds bounds = readBounds(resource);
+        if (bounds.nodes() == 0) {
+            log.warn("No nodes provided for map update. Aborting.");
+            return null;
+        }
+        if (bounds.maxX() == bounds.minX()) {
+            log.warn("All node x values identical ({}). X normalization will collapse to 0.", bounds.maxX());
+        }
+        if (bounds.maxY() == bounds.minY()) {
+            log.warn("All node y values identical ({}). Y normalization will collapse to 0.", bounds.maxY());
+        }
+
+        // Bulk deletes, children first
+        jdbcTemplate.update("DELETE FROM polygon_points");
+        jdbcTemplate.update("DELETE FROM polygons");
+        jdbcTemplate.update("DELETE FROM edges");
+        jdbcTemplate.update("DELETE FROM nodes");
+
+        Batch nodes = new Batch("INSERT INTO nodes (id, name, x, y) VALUES (?, ?, ?, ?)");
+        Batch polygons = new Batch("INSERT INTO polygons (id, type) VALUES (?, ?)");
+        Batch points = new Batch("INSERT INTO polygon_points (id, x, y, polygon_id) VALUES (?, ?, ?, ?)");
+        Set<Long> nodeIds = new HashSet<>();
+        try (JsonParser parser = open(resource)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "nodes" -> readNodes(parser, bounds, nodes, nodeIds);
+                    case "grass" -> readPolygons(parser, bounds, PolygonArea.PolygonType.GRASS, polygons, points);
+                    case "water" -> readPolygons(parser, bounds, PolygonArea.PolygonType.WATER, polygons, points);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        nodes.flush();
+        // Points reference their polygon
+        polygons.flush();
+        points.flush();
+
+        Batch edges = new Batch(
+                "INSERT INTO edges (id, name, speed, direction, start_node_id, end_node_id) VALUES (?, ?, ?, ?, ?, ?)");
+        try (JsonParser parser = open(resource)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("edges".equals(field)) readEdges(parser, edges, nodeIds);
+                else parser.skipChildren();
+            }
+        }
+        edges.flush();
+
+        return new ImportResult(nodes.rows, edges.rows, polygons.rows, points.rows);
+    }
+
+    /**
+     * Moves the id generators past the imported ids, so rows inserted later do not collide with them.
+     * Kept out of the import transaction because some databases commit on DDL.
+     */
+    public void resetIdentities() {
+        for (String table : List.of("nodes", "edges", "polygons", "polygon_points")) {
+            Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (max == null ? 1 : max + 1));
+        }
+    }
+
+    private Bounds readBounds(Resource resource) throws IOException {
+        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE;
+        long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+        int count = 0;
+        try (JsonParser parser = open(resource)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY || !"nodes".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    long x = 0, y = 0;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.currentName();
+                        parser.nextToken();
+                        if ("x".equals(name)) x = parser.getValueAsLong();
+                        else if ("y".equals(name)) y = parser.getValueAsLong();
+                        else parser.skipChildren();
+                    }
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                    count++;
+                }
+            }
+        }
+        return new Bounds(minX, minY, maxX, maxY, count);
+    }
+
+    private void readNodes(JsonParser parser, Bounds bounds, Batch batch, Set<Long> nodeIds) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        double scaleX = bounds.scaleX(DEFAULT_LONGITUDE);
+        double scaleY = bounds.scaleY(DEFAULT_LATITUDE);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Long id = null;
+            long rawX = 0, rawY = 0;
+            String name = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id" -> id = readId(parser, value);
+                    case "name" -> name = parser.getValueAsString();
+                    case "x" -> rawX = parser.getValueAsLong();
+                    case "y" -> rawY = parser.getValueAsLong();
+                    default -> parser.skipChildren();
+                }
+            }
+            if (id == null)
+                throw new IllegalArgumentException("Node " + (name != null ? name : "#" + (batch.rows + 1)) + " has no id");
+            if (!nodeIds.add(id))
+                throw new IllegalArgumentException("Duplicate node id " + id);
+            long normX = Math.round((rawX - bounds.minX()) * scaleX); // in [0, DEFAULT_LONGITUDE]
+            long normY = Math.round((rawY - bounds.minY()) * scaleY); // in [0, DEFAULT_LATITUDE]
+            if (normX < 0) normX = 0; else if (normX > DEFAULT_LONGITUDE) normX = DEFAULT_LONGITUDE;
+            if (normY < 0) normY = 0; else if (normY > DEFAULT_LATITUDE) normY = DEFAULT_LATITUDE;
+            batch.add(id, name, normX, normY);
+        }
+    }
+
+    private void readEdges(JsonParser parser, Batch batch, Set<Long> nodeIds) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        Set<Long> edgeIds = new HashSet<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Long id = null, startId = null, endId = null;
+            String name = null;
+            int speed = DEFAULT_EDGE_SPEED;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id" -> id = readId(parser, value);
+                    case "name" -> name = parser.getValueAsString();
+                    case "startId" -> startId = readId(parser, value);
+                    case "endId" -> endId = readId(parser, value);
+                    case "speed" -> {
+                        if (value != JsonToken.VALUE_NULL) speed = parser.getValueAsInt();
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            String edge = "Edge " + (id != null ? id : name != null ? name : "#" + (batch.rows + 1));
+            if (id == null)
+                throw new IllegalArgumentException(edge + " has no id");
+            if (!edgeIds.add(id))
+                throw new IllegalArgumentException("Duplicate edge id " + id);
+            if (startId == null || !nodeIds.contains(startId))
+                throw new IllegalArgumentException(edge + " starts at unknown node " + startId);
+            if (endId == null || !nodeIds.contains(endId))
+                throw new IllegalArgumentException(edge + " ends at unknown node " + endId);
+            batch.add(id, name, speed, Edge.Direction.TWO_WAY.name(), startId, endId);
+        }
+    }
+
+    private static Long readId(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) return null;
+        if (value != JsonToken.VALUE_NUMBER_INT)
+            throw new IllegalArgumentException("Ids must be integers, got " + parser.getText());
+        return parser.getLongValue();
+    }
+
+    // Polygons are arrays of point objects, normalized with the node bounds but not clamped
+    private void readPolygons(JsonParser parser, Bounds bounds, PolygonArea.PolygonType type,
+                              Batch polygons, Batch points) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        double scaleX = bounds.scaleX(DEFAULT_LONGITUDE);
+        double scaleY = bounds.scaleY(DEFAULT_LATITUDE);
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            long polygonId = polygons.rows + 1;
+            polygons.add(polygonId, type.name());
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                long rawX = 0, rawY = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if ("x".equals(field)) rawX = parser.getValueAsLong();
+                    else if ("y".equals(field)) rawY = parser.getValueAsLong();
+                    else parser.skipChildren();
+                }
+                long normX = Math.round((rawX - bounds.minX()) * scaleX);
+                long normY = Math.round((rawY - bounds.minY()) * scaleY);
+                points.add(points.rows + 1, normX, normY, polygonId);
+            }
+        }
+    }
+
+    private JsonParser open(Resource resource) throws IOException {
+        InputStream in = resource.getInputStream();
+        JsonParser parser = jsonFactory.createParser(in);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            JsonParseException e = new JsonParseException(parser, "Map file must contain a JSON object");
+            parser.close();
+            throw e;
+        }
+        return parser;
+    }
+
+    /**
+     * Buffers rows of one INSERT statement and sends them as a JDBC batch every {@link #BATCH_SIZE} rows.
+     */
+    private final class Batch {
+        private final String sql;
+        private final List<Object[]> pending = new ArrayList<>(BATCH_SIZE);
+        private int rows;
+
+        Batch(String sql) {
+            this.sql = sql;
+        }
+
+        void add(Object... row) {
+            pending.add(row);
+            rows++;
+            if (pending.size() == BATCH_SIZE) flush();
+        }
+
+        void flush() {
+            if (pending.isEmpty()) return;
+            jdbcTemplate.batchUpdate(sql, pending);
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.rss.core.map.service;
+
+/**
+ * The map as served to the dashboard, serialized once per map version.
+ *
+ * @param json plain JSON body
+ * @param gzip the same body gzip-compressed
+ */
+public record MapPayload(String version, byte[] json, byte[] gzip) {
+
+    /**
+     * Strong entity tag of the plain representation, derived from the map version.
+     */
+    public String etag() {
+        return "\"map-" + version + "\"";
+    }
+
+    /**
+     * Strong entity tag of the gzip representation; differs from {@link #etag()} as the bytes differ.
+     */
+    public String gzipEtag() {
+        return "\"map-" + version + "-gzip\"";
+    }
+}
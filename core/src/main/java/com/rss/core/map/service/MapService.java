@@ -1,37 +1,59 @@
 package com.rss.core.map.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rss.core.map.dto.MapReloadResponse;
 import com.rss.core.map.entity.Edge;
 import com.rss.core.map.entity.MapMetadata;
 import com.rss.core.map.entity.Node;
 import com.rss.core.map.entity.PolygonArea;
-import com.rss.core.map.entity.PolygonPoint;
 import com.rss.core.map.repository.EdgeRepository;
 import com.rss.core.map.repository.MapMetadataRepository;
 import com.rss.core.map.repository.NodeRepository;
 import com.rss.core.map.repository.PolygonRepository;
 import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MapService {
+    private static final String UNKNOWN_VERSION = "unknown";
+
     private final NodeRepository nodeRepository;
     private final EdgeRepository edgeRepository;
     private final MapMetadataRepository metadataRepository;
     private final PolygonRepository polygonRepository;
+    private final RoadGraphProvider roadGraphProvider;
+    private final MapImporter mapImporter;
+    private final TransactionTemplate transactionTemplate;
     private final ObjectMapper objectMapper;
 
+    // Serialized map, rebuilt once the persisted map moves to another version
+    private final AtomicReference<MapPayload> payload = new AtomicReference<>();
+    // Version of the map in the tables, which the payload is read from; may run ahead of the routing graph
+    private volatile String persistedVersion;
+    private final Object reloadLock = new Object();
+
     @Value("${map.path}")
     private String DEFAULT_MAP_PATH;
 
@@ -41,9 +63,6 @@ public class MapService {
     @Value("${map.latitude}")
     private Integer DEFAULT_LATITUDE;
 
-    @Value("${map.edge.speed}")
-    private Integer DEFAULT_EDGE_SPEED;
-
     @PostConstruct
     public void loadMapOnStartup() {
         try {
@@ -52,161 +71,180 @@ public class MapService {
 
             if (resource.exists()) {
                 log.info("Map file found at: {}", DEFAULT_MAP_PATH);
-                JsonNode rootNode = objectMapper.readTree(resource.getInputStream());
-                String version = rootNode.get("version").asText();
+                String version = mapImporter.readVersion(resource);
 
                 if(metaData != null && metaData.getVersion().equals(version)) {
                     log.info("Map up to date (version: {})", version);
-                    return;
-                } else if(metaData == null) {
-                    metaData = new MapMetadata();
-                    metaData.setKey("meta");
+                    persistedVersion = version;
+                } else {
+                    log.info("Map version changed to {}. Updating map...", version);
+                    updateMap(resource, version, metaData);
                 }
 
-                metaData.setVersion(version);
-                metaData.setLongitude(DEFAULT_LONGITUDE);
-                metaData.setLatitude(DEFAULT_LATITUDE);
-                metaData.setUpdatedAt(java.time.LocalDateTime.now());
-                metadataRepository.save(metaData);
-
-                log.info("Map version changed to {}. Updating map...", version);
-                updateMap(rootNode.get("edges"), rootNode.get("nodes"), rootNode.get("grass"), rootNode.get("water"));
-
             } else {
                 log.info("Map file not found at: {}. Using existing map data.", DEFAULT_MAP_PATH);
                 if(metaData == null)
                     log.error("No map metadata found. The map might be empty.");
+                persistedVersion = metaData != null ? metaData.getVersion() : UNKNOWN_VERSION;
             }
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             log.error("Error loading map file: {}", e.getMessage(), e);
         }
-    }
 
-    public void updateMap(JsonNode jsonEdges, JsonNode jsonNodes, JsonNode jsonGrass, JsonNode jsonWater) {
-        if(jsonNodes == null || !jsonNodes.isArray() || jsonNodes.isEmpty()) {
-            log.warn("No nodes provided for map update. Aborting.");
-            return;
-        }
+        // Routing runs against the in-memory graph, build it from whatever map is now persisted
+        roadGraphProvider.rebuild();
+    }
 
-        edgeRepository.deleteAll();
-        nodeRepository.deleteAll();
-        polygonRepository.deleteAll();
-
-        // Determine original bounds (x,y can be negative or positive)
-        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE;
-        long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
-        for (int i = 0; i < jsonNodes.size(); i++) {
-            JsonNode n = jsonNodes.get(i);
-            long x = n.get("x").asLong();
-            long y = n.get("y").asLong();
-            if (x < minX) minX = x;
-            if (y < minY) minY = y;
-            if (x > maxX) maxX = x;
-            if (y > maxY) maxY = y;
+    /**
+     * Imports a new map version while routing keeps serving the current one: the tables are replaced in one
+     * transaction, then a new routing generation is built and swapped in. Reloads are serialized.
+     *
+     * @param mapJson map file in the same format as {@code map.path}
+     */
+    public MapReloadResponse reloadMap(InputStream mapJson) throws IOException {
+        // The importer reads the file more than once
+        Path file = Files.createTempFile("map-reload-", ".json");
+        try {
+            Files.copy(mapJson, file, StandardCopyOption.REPLACE_EXISTING);
+            Resource resource = new FileSystemResource(file);
+
+            synchronized (reloadLock) {
+                String version;
+                try {
+                    version = mapImporter.readVersion(resource);
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("Invalid map file: " + e.getOriginalMessage());
+                }
+                if (version == null)
+                    throw new IllegalArgumentException("Map file has no version");
+
+                MapMetadata metaData = metadataRepository.findByKey("meta").orElse(null);
+                String previousVersion = roadGraphProvider.getVersion();
+                // Snapshots, cached payloads and ETags are keyed by version, so a version must not change content.
+                // A version persisted by a reload whose rebuild failed is not routed on yet and may be retried.
+                if (version.equals(previousVersion) && metaData != null && version.equals(metaData.getVersion()))
+                    throw new IllegalStateException("Map version " + version + " is already loaded");
+
+                long started = System.nanoTime();
+                log.info("Reloading map: version {} -> {}", previousVersion, version);
+                MapImporter.ImportResult result;
+                try {
+                    result = updateMap(resource, version, metaData);
+                } catch (UncheckedIOException e) {
+                    if (e.getCause() instanceof JsonProcessingException json)
+                        throw new IllegalArgumentException("Invalid map file: " + json.getOriginalMessage());
+                    throw e;
+                }
+                if (result == null)
+                    throw new IllegalArgumentException("Map file has no nodes");
+                roadGraphProvider.rebuild();
+
+                return MapReloadResponse.builder()
+                        .previousVersion(previousVersion)
+                        .version(version)
+                        .nodes(result.nodes())
+                        .edges(result.edges())
+                        .polygons(result.polygons())
+                        .durationMs((System.nanoTime() - started) / 1_000_000)
+                        .build();
+            }
+        } finally {
+            Files.deleteIfExists(file);
         }
+    }
 
-        long rangeX = maxX - minX;
-        long rangeY = maxY - minY;
-        if (rangeX == 0) {
-            log.warn("All node x values identical ({}). X normalization will collapse to 0.", maxX);
-        }
-        if (rangeY == 0) {
-            log.warn("All node y values identical ({}). Y normalization will collapse to 0.", maxY);
-        }
+    /**
+     * Replaces the persisted map with the given file in one transaction, recording its version only once the
+     * data is written.
+     *
+     * @return the imported counts, or null if the file has no nodes and nothing was changed
+     */
+    public MapImporter.ImportResult updateMap(Resource resource, String version, MapMetadata existing) {
+        long started = System.nanoTime();
+        MapImporter.ImportResult result = transactionTemplate.execute(status -> {
+            MapImporter.ImportResult imported;
+            try {
+                imported = mapImporter.importMap(resource);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (imported == null) {
+                status.setRollbackOnly();
+                return null;
+            }
 
-        double scaleX = rangeX == 0 ? 0d : (double) DEFAULT_LONGITUDE / (double) rangeX;
-        double scaleY = rangeY == 0 ? 0d : (double) DEFAULT_LATITUDE / (double) rangeY;
-
-        Map<Integer, Node> tempNodes = new LinkedHashMap<>(); // preserve order
-        for(int i = 0; i < jsonNodes.size(); i++) {
-            var jsonNode = jsonNodes.get(i);
-            long rawX = jsonNode.get("x").asLong();
-            long rawY = jsonNode.get("y").asLong();
-
-            long normX = Math.round((rawX - minX) * scaleX); // in [0, DEFAULT_LONGITUDE]
-            long normY = Math.round((rawY - minY) * scaleY); // in [0, DEFAULT_LATITUDE]
-            if (normX < 0) normX = 0; else if (normX > DEFAULT_LONGITUDE) normX = DEFAULT_LONGITUDE;
-            if (normY < 0) normY = 0; else if (normY > DEFAULT_LATITUDE) normY = DEFAULT_LATITUDE;
-
-            var node = Node.builder()
-                    .name(jsonNode.get("name").asText())
-                    .x(normX)
-                    .y(normY)
-                    .build();
-            tempNodes.put(jsonNode.get("id").asInt(), node);
-        }
+            MapMetadata metaData = existing;
+            if(metaData == null) {
+                metaData = new MapMetadata();
+                metaData.setKey("meta");
+            }
+            metaData.setVersion(version);
+            metaData.setLongitude(DEFAULT_LONGITUDE);
+            metaData.setLatitude(DEFAULT_LATITUDE);
+            metaData.setUpdatedAt(java.time.LocalDateTime.now());
+            metadataRepository.save(metaData);
+            return imported;
+        });
+        if (result == null) return null;
+        persistedVersion = version;
+
+        mapImporter.resetIdentities();
+        log.info("Map updated in {} ms: {} nodes, {} edges, {} polygons ({} points). Normalized to (0,0)-( {}, {} ).",
+                (System.nanoTime() - started) / 1_000_000, result.nodes(), result.edges(), result.polygons(),
+                result.polygonPoints(), DEFAULT_LONGITUDE, DEFAULT_LATITUDE);
+        return result;
+    }
 
-        // Persist nodes first to generate DB IDs
-        nodeRepository.saveAll(tempNodes.values());
-
-        List<Edge> edges = new ArrayList<>();
-        if(jsonEdges != null && jsonEdges.isArray()) {
-            for(int i = 0; i < jsonEdges.size(); i++) {
-                var jsonEdge = jsonEdges.get(i);
-                var speedNode = jsonEdge.get("speed");
-                int speed = (speedNode == null || speedNode.isNull()) ? DEFAULT_EDGE_SPEED : speedNode.asInt();
-                var edge = Edge.builder()
-                        .name(jsonEdge.get("name").asText())
-                        .speed(speed)
-                        .direction(Edge.Direction.TWO_WAY)
-                        .startNode(tempNodes.get(jsonEdge.get("startId").asInt()))
-                        .endNode(tempNodes.get(jsonEdge.get("endId").asInt()))
-                        .build();
-                edges.add(edge);
+    /**
+     * @return the current map serialized for the dashboard, read from the database only on the first call per
+     * map version. Keyed by the persisted version the payload is stamped with, not the routing graph's, which
+     * lags behind during a rebuild and stays behind if one fails.
+     */
+    public MapPayload getMapPayload() {
+        String version = persistedVersion();
+        MapPayload current = payload.get();
+        if (current != null && current.version().equals(version)) return current;
+        synchronized (payload) {
+            current = payload.get();
+            if (current == null || !current.version().equals(version)) {
+                current = buildPayload();
+                payload.set(current);
             }
+            return current;
         }
+    }
 
-        edgeRepository.saveAll(edges);
-
-        List<PolygonArea> polygons = new ArrayList<>();
-        if (jsonGrass != null && jsonGrass.isArray()) {
-            for (JsonNode polygonNode : jsonGrass) {
-                PolygonArea polygon = new PolygonArea();
-                polygon.setType(PolygonArea.PolygonType.GRASS);
-                List<PolygonPoint> points = new ArrayList<>();
-                for (JsonNode pointNode : polygonNode) {
-                    long rawX = pointNode.get("x").asLong();
-                    long rawY = pointNode.get("y").asLong();
-                    long normX = Math.round((rawX - minX) * scaleX);
-                    long normY = Math.round((rawY - minY) * scaleY);
-                    PolygonPoint point = new PolygonPoint();
-                    point.setX(normX);
-                    point.setY(normY);
-                    point.setPolygon(polygon);
-                    points.add(point);
-                }
-                polygon.setPoints(points);
-                polygons.add(polygon);
-            }
+    // Set whenever the tables change; read once here only if startup could not determine it
+    private String persistedVersion() {
+        String version = persistedVersion;
+        if (version == null) {
+            version = metadataRepository.findByKey("meta").map(MapMetadata::getVersion).orElse(UNKNOWN_VERSION);
+            persistedVersion = version;
         }
-        if (jsonWater != null && jsonWater.isArray()) {
-            for (JsonNode polygonNode : jsonWater) {
-                PolygonArea polygon = new PolygonArea();
-                polygon.setType(PolygonArea.PolygonType.WATER);
-                List<PolygonPoint> points = new ArrayList<>();
-                for (JsonNode pointNode : polygonNode) {
-                    long rawX = pointNode.get("x").asLong();
-                    long rawY = pointNode.get("y").asLong();
-                    long normX = Math.round((rawX - minX) * scaleX);
-                    long normY = Math.round((rawY - minY) * scaleY);
-                    PolygonPoint point = new PolygonPoint();
-                    point.setX(normX);
-                    point.setY(normY);
-                    point.setPolygon(polygon);
-                    points.add(point);
-                }
-                polygon.setPoints(points);
-                polygons.add(polygon);
+        return version;
+    }
+
+    private MapPayload buildPayload() {
+        long started = System.nanoTime();
+        Map<String, Object> map = getCurrentMap();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(map);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
             }
+            MapPayload built = new MapPayload(String.valueOf(map.get("version")), json, compressed.toByteArray());
+            log.info("Map payload for version {} built in {} ms: {} bytes, {} gzipped", built.version(),
+                    (System.nanoTime() - started) / 1_000_000, json.length, built.gzip().length);
+            return built;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize map", e);
         }
-        polygonRepository.saveAll(polygons);
-
-        log.info("Map updated: {} nodes, {} edges, {} polygons. Normalized to (0,0)-( {}, {} ).", tempNodes.size(), edges.size(), polygons.size(), DEFAULT_LONGITUDE, DEFAULT_LATITUDE);
     }
 
     public Map<String, Object> getCurrentMap() {
         MapMetadata metadata = metadataRepository.findByKey("meta").orElse(null);
-        String version = metadata != null ? metadata.getVersion() : "unknown";
+        String version = metadata != null ? metadata.getVersion() : UNKNOWN_VERSION;
 
         List<Node> persistedNodes = nodeRepository.findAll();
         List<Map<String, Object>> nodes = persistedNodes.stream()
@@ -220,7 +258,7 @@ public class MapService {
                     return m;
                 }).collect(Collectors.toList());
 
-        List<Edge> persistedEdges = edgeRepository.findAll();
+        List<Edge> persistedEdges = edgeRepository.findAllWithNodes();
         List<Map<String, Object>> edges = persistedEdges.stream()
                 .sorted(Comparator.comparing(Edge::getId))
                 .map(e -> {
@@ -235,7 +273,7 @@ public class MapService {
                     return m;
                 }).collect(Collectors.toList());
 
-        List<PolygonArea> persistedPolygons = polygonRepository.findAll();
+        List<PolygonArea> persistedPolygons = polygonRepository.findAllWithPoints();
         List<Map<String, Object>> grassPolygons = new ArrayList<>();
         List<Map<String, Object>> waterPolygons = new ArrayList<>();
 
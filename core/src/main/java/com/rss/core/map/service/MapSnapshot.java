@@ -0,0 +1,233 @@
+package com.rss.core.map.service;
+
+import com.rss.core.map.graph.RoadGraph;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of the road graph, read back through a memory-mapped file so the routing graph can be
+ * built at startup without touching the map tables. Polygons are not part of it: routing does not use them,
+ * and the dashboard payload reads them once per map version.
+ * <p>
+ * Layout, all little-endian and fixed width except the strings:
+ * <pre>
+ * header   int magic, int format, int longitude, int latitude, int nodes, int edges, int strings, int version string
+ * nodes    long id[nodes], double x[nodes], double y[nodes]
+ * edges    long id[edges], int start[edges], int end[edges], int speed[edges], int flags[edges], int name[edges]
+ * strings  (int length, utf-8 bytes)[strings]
+ * </pre>
+ * Edge ends are node indices, names and the map version index the string table (-1 for null).
+ */
+final class MapSnapshot {
+    private static final int MAGIC = 0x4D535352; // "RSSM"
+    private static final int FORMAT = 2;
+    private static final int HEADER_BYTES = 8 * Integer.BYTES;
+    private static final int NODE_BYTES = Long.BYTES + 2 * Double.BYTES;
+    private static final int EDGE_BYTES = Long.BYTES + 5 * Integer.BYTES;
+    private static final int FLAG_ONE_WAY = 1;
+
+    private final ByteBuffer buffer;
+    private final String version;
+    private final int longitude;
+    private final int latitude;
+    private final int nodes;
+    private final int edges;
+    private final String[] strings;
+
+    private MapSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        try {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT)
+                throw new IOException("Not a map snapshot of format " + FORMAT);
+            this.longitude = buffer.getInt(8);
+            this.latitude = buffer.getInt(12);
+            this.nodes = buffer.getInt(16);
+            this.edges = buffer.getInt(20);
+            if (nodes < 0 || edges < 0 || stringsOffset() > buffer.capacity())
+                throw new IOException("Corrupt map snapshot header");
+            this.strings = readStrings(buffer.getInt(24));
+            int versionIndex = buffer.getInt(28);
+            this.version = versionIndex < 0 || versionIndex >= strings.length ? null : strings[versionIndex];
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            throw new IOException("Truncated map snapshot", e);
+        }
+    }
+
+    /**
+     * Maps the snapshot file read-only and validates its header.
+     */
+    static MapSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MapSnapshot(mapped.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    String version() {
+        return version;
+    }
+
+    /**
+     * @return true if this snapshot was written for the given map version and normalized size
+     */
+    boolean matches(String version, int longitude, int latitude) {
+        return version != null && version.equals(this.version)
+                && this.longitude == longitude && this.latitude == latitude;
+    }
+
+    /**
+     * Reads the columns straight into the graph's arrays, without a per-element builder.
+     */
+    RoadGraph toGraph() throws IOException {
+        try {
+            int offset = HEADER_BYTES;
+            long[] nodeIds = new long[nodes];
+            double[] nodeX = new double[nodes];
+            double[] nodeY = new double[nodes];
+            offset = readLongs(offset, nodeIds);
+            offset = readDoubles(offset, nodeX);
+            offset = readDoubles(offset, nodeY);
+
+            long[] edgeIds = new long[edges];
+            int[] start = new int[edges];
+            int[] end = new int[edges];
+            int[] speed = new int[edges];
+            int[] flags = new int[edges];
+            int[] names = new int[edges];
+            offset = readLongs(offset, edgeIds);
+            offset = readInts(offset, start);
+            offset = readInts(offset, end);
+            offset = readInts(offset, speed);
+            offset = readInts(offset, flags);
+            readInts(offset, names);
+
+            String[] edgeNames = new String[edges];
+            boolean[] oneWay = new boolean[edges];
+            for (int i = 0; i < edges; i++) {
+                edgeNames[i] = string(names[i]);
+                oneWay[i] = (flags[i] & FLAG_ONE_WAY) != 0;
+            }
+            return RoadGraph.of(nodeIds, nodeX, nodeY, edgeIds, edgeNames, start, end, speed, oneWay);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            throw new IOException("Corrupt map snapshot", e);
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file next to {@code path} and moves it into place, so a reader never
+     * sees a partially written file.
+     */
+    static void write(Path path, String version, int longitude, int latitude, RoadGraph graph) throws IOException {
+        Map<String, Integer> stringIndex = new LinkedHashMap<>();
+        int versionString = intern(stringIndex, version);
+        int nodes = graph.nodeCount();
+        int edges = graph.edgeCount();
+        int[] names = new int[edges];
+        for (int e = 0; e < edges; e++) names[e] = intern(stringIndex, graph.edgeName(e));
+
+        List<byte[]> encoded = new ArrayList<>(stringIndex.size());
+        long stringBytes = 0;
+        for (String s : stringIndex.keySet()) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            stringBytes += Integer.BYTES + bytes.length;
+        }
+
+        long size = HEADER_BYTES
+                + (long) nodes * NODE_BYTES
+                + (long) edges * EDGE_BYTES
+                + stringBytes;
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Map too large for a snapshot: " + size + " bytes");
+
+        ByteBuffer out = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(FORMAT).putInt(longitude).putInt(latitude)
+                .putInt(nodes).putInt(edges).putInt(stringIndex.size()).putInt(versionString);
+
+        for (int v = 0; v < nodes; v++) out.putLong(graph.nodeId(v));
+        for (int v = 0; v < nodes; v++) out.putDouble(graph.x(v));
+        for (int v = 0; v < nodes; v++) out.putDouble(graph.y(v));
+
+        for (int e = 0; e < edges; e++) out.putLong(graph.edgeId(e));
+        for (int e = 0; e < edges; e++) out.putInt(graph.edgeStart(e));
+        for (int e = 0; e < edges; e++) out.putInt(graph.edgeEnd(e));
+        for (int e = 0; e < edges; e++) out.putInt(graph.edgeSpeed(e));
+        for (int e = 0; e < edges; e++) out.putInt(graph.isOneWay(e) ? FLAG_ONE_WAY : 0);
+        for (int e = 0; e < edges; e++) out.putInt(names[e]);
+
+        for (byte[] bytes : encoded) out.putInt(bytes.length).put(bytes);
+        out.flip();
+
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) channel.write(out);
+                channel.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static int intern(Map<String, Integer> index, String s) {
+        if (s == null) return -1;
+        return index.computeIfAbsent(s, k -> index.size());
+    }
+
+    private String string(int index) {
+        return index < 0 ? null : strings[index];
+    }
+
+    private long stringsOffset() {
+        return HEADER_BYTES
+                + (long) nodes * NODE_BYTES
+                + (long) edges * EDGE_BYTES;
+    }
+
+    private String[] readStrings(int count) {
+        int offset = (int) stringsOffset();
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt(offset);
+            byte[] bytes = new byte[length];
+            buffer.get(offset + Integer.BYTES, bytes);
+            result[i] = new String(bytes, StandardCharsets.UTF_8);
+            offset += Integer.BYTES + length;
+        }
+        return result;
+    }
+
+    private int readLongs(int offset, long[] target) {
+        buffer.slice(offset, target.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(target);
+        return offset + target.length * Long.BYTES;
+    }
+
+    private int readDoubles(int offset, double[] target) {
+        buffer.slice(offset, target.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(target);
+        return offset + target.length * Double.BYTES;
+    }
+
+    private int readInts(int offset, int[] target) {
+        buffer.slice(offset, target.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(target);
+        return offset + target.length * Integer.BYTES;
+    }
+}
@@ -0,0 +1,211 @@
+package com.rss.core.map.service;
+
+import com.rss.core.map.entity.Edge;
+import com.rss.core.map.entity.MapMetadata;
+import com.rss.core.map.entity.Node;
+import com.rss.core.map.graph.AStarSearch;
+import com.rss.core.map.graph.BidirectionalAStarSearch;
+import com.rss.core.map.graph.ChainCompressedSearch;
+import com.rss.core.map.graph.ContractionHierarchy;
+import com.rss.core.map.graph.EdgeSpatialIndex;
+import com.rss.core.map.graph.EdgeWeights;
+import com.rss.core.map.graph.Landmarks;
+import com.rss.core.map.graph.PathFinder;
+import com.rss.core.map.graph.RoadGraph;
+import com.rss.core.map.graph.RoutingEngine;
+import com.rss.core.map.graph.TravelTimeSearch;
+import com.rss.core.map.repository.EdgeRepository;
+import com.rss.core.map.repository.MapMetadataRepository;
+import com.rss.core.map.repository.NodeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Holds the in-memory road graph used for routing. Built from the database once the map is loaded,
+ * so route requests never touch the persistence context. When {@code map.snapshot.path} is set the graph is
+ * loaded from a binary {@link MapSnapshot} of the current map version instead, and the snapshot is rewritten
+ * whenever the graph had to come from the database. With {@code map.traffic.enabled} routes are searched with A*
+ * on the live travel times published by {@link TrafficService}, on the compressed graph when the engine is
+ * {@code CHAINS}; the contraction hierarchy then only serves matrices.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoadGraphProvider {
+    private final NodeRepository nodeRepository;
+    private final EdgeRepository edgeRepository;
+    private final MapMetadataRepository metadataRepository;
+
+    @Value("${map.edge.speed:50}")
+    private int defaultEdgeSpeed;
+
+    @Value("${map.snapshot.path:}")
+    private String snapshotPath;
+
+    @Value("${map.routing.engine:CH}")
+    private RoutingEngine engine;
+
+    @Value("${map.routing.landmarks:8}")
+    private int landmarkCount;
+
+    @Value("${map.routing.cache.max-bytes:16777216}")
+    private long cacheMaxBytes;
+
+    @Value("${map.routing.cache.quantum:5}")
+    private int cacheQuantum;
+
+    @Value("${map.traffic.enabled:false}")
+    private boolean trafficEnabled;
+
+    // Current generation; replaced as a whole so readers holding the old one finish on it undisturbed
+    private volatile RoadNetwork network;
+
+    /**
+     * Builds a complete new generation (graph, hierarchy, path finder, spatial index and route cache) from the
+     * persisted map and publishes it with a single reference swap. Requests keep routing on the previous
+     * generation until then; rebuilds are serialized.
+     */
+    public synchronized void rebuild() {
+        MapMetadata metadata = metadataRepository.findByKey("meta").orElse(null);
+        String version = metadata != null ? metadata.getVersion() : "unknown";
+
+        RoadGraph graph = metadata != null ? loadSnapshot(metadata) : null;
+        if (graph == null) {
+            graph = loadFromDatabase();
+            if (metadata != null) writeSnapshot(metadata, graph);
+        }
+        log.info("Road graph built: {} nodes, {} edges, {} arcs", graph.nodeCount(), graph.edgeCount(), graph.arcCount());
+
+        // The hierarchy also serves travel matrices, so it is built whatever engine routes
+        ContractionHierarchy hierarchy = buildHierarchy(graph);
+        EdgeWeights traffic = EdgeWeights.travelTime(graph);
+        PathFinder pathFinder = trafficEnabled ? createTrafficPathFinder(graph, traffic) : createPathFinder(graph, hierarchy);
+        network = new RoadNetwork(version, graph, pathFinder, hierarchy, EdgeSpatialIndex.build(graph),
+                new RouteCache(cacheMaxBytes, cacheQuantum), traffic, new TravelTimeSearch(graph, traffic));
+    }
+
+    private RoadGraph loadFromDatabase() {
+        RoadGraph.Builder builder = RoadGraph.builder();
+        for (Node node : nodeRepository.findAll()) {
+            builder.addNode(node.getId(), node.getX(), node.getY());
+        }
+        for (Edge edge : edgeRepository.findAllWithNodes()) {
+            builder.addEdge(
+                    edge.getId(),
+                    edge.getName(),
+                    edge.getStartNode().getId(),
+                    edge.getEndNode().getId(),
+                    edge.getSpeed() == null ? defaultEdgeSpeed : edge.getSpeed(),
+                    edge.getDirection() == Edge.Direction.ONE_WAY);
+        }
+        return builder.build();
+    }
+
+    // Null when snapshots are disabled, missing, stale or unreadable; the database is the source of truth then
+    private RoadGraph loadSnapshot(MapMetadata metadata) {
+        if (snapshotPath.isBlank()) return null;
+        Path path = Path.of(snapshotPath);
+        if (!Files.isRegularFile(path)) return null;
+        try {
+            long start = System.currentTimeMillis();
+            MapSnapshot snapshot = MapSnapshot.open(path);
+            if (!snapshot.matches(metadata.getVersion(), metadata.getLongitude(), metadata.getLatitude())) {
+                log.info("Map snapshot at {} is for version {}, current is {}", path, snapshot.version(), metadata.getVersion());
+                return null;
+            }
+            RoadGraph graph = snapshot.toGraph();
+            log.info("Road graph loaded from snapshot {} in {} ms", path, System.currentTimeMillis() - start);
+            return graph;
+        } catch (IOException e) {
+            log.warn("Could not read map snapshot at {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeSnapshot(MapMetadata metadata, RoadGraph graph) {
+        if (snapshotPath.isBlank()) return;
+        Path path = Path.of(snapshotPath);
+        try {
+            MapSnapshot.write(path, metadata.getVersion(), metadata.getLongitude(), metadata.getLatitude(), graph);
+            log.info("Map snapshot for version {} written to {}", metadata.getVersion(), path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write map snapshot to {}: {}", path, e.getMessage());
+        }
+    }
+
+    private ContractionHierarchy buildHierarchy(RoadGraph graph) {
+        try {
+            long start = System.currentTimeMillis();
+            ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+            log.info("Contraction hierarchy built in {} ms with {} shortcuts",
+                    System.currentTimeMillis() - start, hierarchy.shortcutCount());
+            return hierarchy;
+        } catch (RuntimeException e) {
+            log.error("Contraction hierarchy preprocessing failed", e);
+            return null;
+        }
+    }
+
+    private PathFinder createPathFinder(RoadGraph graph, ContractionHierarchy hierarchy) {
+        if (engine == RoutingEngine.CH) {
+            if (hierarchy != null) return hierarchy;
+            log.warn("No contraction hierarchy available, falling back to A*");
+        } else if (engine == RoutingEngine.ALT) {
+            long start = System.currentTimeMillis();
+            Landmarks landmarks = Landmarks.select(graph, landmarkCount);
+            log.info("Selected {} ALT landmarks in {} ms", landmarks.count(), System.currentTimeMillis() - start);
+            return new AStarSearch(graph, landmarks);
+        } else if (engine == RoutingEngine.BIDIRECTIONAL) {
+            return new BidirectionalAStarSearch(graph);
+        } else if (engine == RoutingEngine.CHAINS) {
+            return compress(graph, null);
+        }
+        return new AStarSearch(graph);
+    }
+
+    // Preprocessed bounds are fixed to length, so live costs are routed with A*, on the compressed graph if chosen
+    private PathFinder createTrafficPathFinder(RoadGraph graph, EdgeWeights traffic) {
+        return engine == RoutingEngine.CHAINS ? compress(graph, traffic) : new AStarSearch(graph, traffic);
+    }
+
+    private ChainCompressedSearch compress(RoadGraph graph, EdgeWeights weights) {
+        long start = System.currentTimeMillis();
+        ChainCompressedSearch search = ChainCompressedSearch.build(graph, weights);
+        log.info("Road graph compressed in {} ms: {} junctions and {} chains for {} nodes and {} edges",
+                System.currentTimeMillis() - start, search.junctionCount(), search.chainCount(),
+                graph.nodeCount(), graph.edgeCount());
+        return search;
+    }
+
+    public RoutingEngine getEngine() {
+        return engine;
+    }
+
+    public boolean isTrafficEnabled() {
+        return trafficEnabled;
+    }
+
+    RoadNetwork getNetwork() {
+        RoadNetwork current = network;
+        if (current == null)
+            throw new IllegalStateException("Road graph is not loaded");
+        return current;
+    }
+
+    /**
+     * @return map version of the current generation, "unknown" without map metadata
+     */
+    public String getVersion() {
+        return getNetwork().version();
+    }
+
+    public RoadGraph getGraph() {
+        return getNetwork().graph();
+    }
+}
@@ -0,0 +1,22 @@
+package com.rss.core.map.service;
+
+import com.rss.core.map.graph.ContractionHierarchy;
+import com.rss.core.map.graph.EdgeSpatialIndex;
+import com.rss.core.map.graph.EdgeWeights;
+import com.rss.core.map.graph.PathFinder;
+import com.rss.core.map.graph.RoadGraph;
+import com.rss.core.map.graph.TravelTimeSearch;
+
+/**
+ * Road graph together with the path finder, edge index and route cache prepared for it, published as one unit
+ * so a route request never mixes indices of different graphs.
+ *
+ * @param version map version the graph was built from
+ * @param hierarchy contraction hierarchy for travel matrices, null if preprocessing failed
+ * @param traffic live travel times, updated in place by {@link TrafficService}
+ * @param travelTimes one-to-many travel times on {@code traffic}
+ */
+record RoadNetwork(String version, RoadGraph graph, PathFinder pathFinder, ContractionHierarchy hierarchy,
+                   EdgeSpatialIndex edgeIndex, RouteCache routeCache, EdgeWeights traffic,
+                   TravelTimeSearch travelTimes) {
+}
@@ -0,0 +1,63 @@
+package com.rss.core.map.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.rss.core.map.graph.GraphPath;
+
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded cache of raw graph paths for one road network. Keys are the two start nodes (the snapped start
+ * edge) and the snapped target edge with the projection offset rounded to {@code quantum} map units, so
+ * requests ending at nearly the same spot share a path. Only node and edge indices are cached; the projection
+ * points of each request are stitched on afterwards. A new cache is created with every network, which drops
+ * all entries of the previous map version at once.
+ */
+final class RouteCache {
+    // Rough retained size of a cached path: object headers plus both index arrays
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private record Key(int sourceA, int sourceB, int targetEdge, int targetOffset) {
+    }
+
+    private final Cache<Key, GraphPath> paths;
+    private final int quantum;
+
+    RouteCache(long maxBytes, int quantum) {
+        this.paths = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<Key, GraphPath>weigher((key, path) ->
+                        ENTRY_OVERHEAD_BYTES + 4 * (path.nodes().length + path.edges().length))
+                .recordStats()
+                .build();
+        this.quantum = Math.max(1, quantum);
+    }
+
+    /**
+     * @return the cached path for this start edge and target bucket, running {@code search} on a miss;
+     * null when no path exists and partial paths of searches out of budget, which are not cached
+     */
+    GraphPath get(int sourceA, int sourceB, int targetEdge, int targetOffset, Supplier<GraphPath> search) {
+        Key key = new Key(Math.min(sourceA, sourceB), Math.max(sourceA, sourceB), targetEdge, targetOffset / quantum);
+        GraphPath path = paths.get(key, k -> search.get());
+        // Dropped right away; a request racing in between may still get it, flagged as partial
+        if (path != null && path.partial()) paths.invalidate(key);
+        return path;
+    }
+
+    /**
+     * Drops all paths, for when edge costs changed under them.
+     */
+    void invalidateAll() {
+        paths.invalidateAll();
+    }
+
+    CacheStats stats() {
+        return paths.stats();
+    }
+
+    long size() {
+        return paths.estimatedSize();
+    }
+}
@@ -1,17 +1,24 @@
 package com.rss.core.map.service;
 
 import com.rss.core.map.MapInternalApi;
+import com.rss.core.map.RoadPosition;
+import com.rss.core.map.TravelMatrix;
 import com.rss.core.map.entity.Edge;
-import com.rss.core.map.entity.Node;
 import com.rss.core.map.dto.EdgeDTO;
 import com.rss.core.map.dto.RouteRequest;
 import com.rss.core.map.dto.RouteResponse;
 import com.rss.core.map.dto.SimRouteRequest;
+import com.rss.core.map.graph.ContractionHierarchy;
+import com.rss.core.map.graph.EdgePosition;
+import com.rss.core.map.graph.EdgeSpatialIndex;
+import com.rss.core.map.graph.GraphPath;
+import com.rss.core.map.graph.RoadGraph;
+import com.rss.core.map.graph.RouteQuery;
+import com.rss.core.map.graph.SearchBudget;
 import com.rss.core.map.model.EdgeProjectionPoint;
 import com.rss.core.map.model.RouteStep;
-import com.rss.core.map.repository.EdgeRepository;
-import com.rss.core.map.repository.NodeRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.geo.Point;
 import org.springframework.stereotype.Service;
 
@@ -20,14 +27,36 @@ import java.util.*;
 @Service
 @RequiredArgsConstructor
 public class RouteService implements MapInternalApi {
-    private final EdgeRepository edgeRepository;
-    private final NodeRepository nodeRepository;
+    // Positions this close to the previous edge's neighbourhood stay matched there, even if another road is closer
+    private static final double MATCH_TOLERANCE = 5;
 
-    public RouteResponse getRoute(RouteRequest request) {
+    private final RoadGraphProvider roadGraphProvider;
+    private final RoutingStats routingStats;
+
+    // Per-request search budget, 0 for no limit
+    @Value("${map.routing.budget.max-settled-nodes:0}")
+    private int budgetMaxSettledNodes;
+
+    @Value("${map.routing.budget.timeout-ms:0}")
+    private long budgetTimeoutMs;
 
-        EdgeProjectionPoint startProjection= findClosestEdge(request.getStartPoint());
-        EdgeProjectionPoint destinationProjection = findClosestEdge(request.getDestinationPoint());
-        List<RouteStep> route = searchRoute(
+    @Value("${map.matrix.max-cells:250000}")
+    private long matrixMaxCells;
+
+    private record SearchResult(List<RouteStep> steps, boolean partial) {
+    }
+
+    public RouteResponse getRoute(RouteRequest request) {
+        // The deadline covers snapping as well as the search
+        SearchBudget budget = SearchBudget.of(budgetMaxSettledNodes, budgetTimeoutMs);
+        // One generation for the whole request, a concurrent map reload must not mix edge ids of two maps
+        RoadNetwork network = roadGraphProvider.getNetwork();
+
+        EdgeProjectionPoint startProjection= findClosestEdge(network, request.getStartPoint());
+        EdgeProjectionPoint destinationProjection = findClosestEdge(network, request.getDestinationPoint());
+        SearchResult result = searchRoute(
+                network,
+                budget,
                 startProjection.getEdge().getSpeed(),
                 startProjection.getEdge().getStartNodeId(),
                 startProjection.getEdge().getEndNodeId(),
@@ -36,7 +65,8 @@ public class RouteService implements MapInternalApi {
         return RouteResponse.builder()
                 .startPointProjection(startProjection)
                 .destinationPointProjection(destinationProjection)
-                .route(route)
+                .route(result.steps())
+                .partial(result.partial())
                 .build();
     }
 
@@ -45,136 +75,64 @@ public class RouteService implements MapInternalApi {
         return null;
     }
 
-    private List<RouteStep> searchRoute(int currentSpeed, Long startNodeId, Long endNodeId, EdgeProjectionPoint destinationPoint) {
+    private SearchResult searchRoute(RoadNetwork network, SearchBudget budget, int currentSpeed, Long startNodeId,
+                                     Long endNodeId, EdgeProjectionPoint destinationPoint) {
         List<RouteStep> routeSteps = new ArrayList<>();
-
-        // Retrieve both possible start nodes and target info
-        Node startNodeA = nodeRepository.findById(startNodeId).orElseThrow();
-        Node startNodeB = nodeRepository.findById(endNodeId).orElseThrow();
-        Edge targetEdge = edgeRepository.findById(destinationPoint.getEdge().getId()).orElseThrow();
-        Set<Long> targetNodeIds = Set.of(targetEdge.getStartNode().getId(), targetEdge.getEndNode().getId());
+        RoadGraph graph = network.graph();
+
+        // Resolve both possible start nodes and target info to graph indices
+        int startNodeA = requireNode(graph, startNodeId);
+        int startNodeB = requireNode(graph, endNodeId);
+        int targetEdge = graph.indexOfEdge(destinationPoint.getEdge().getId());
+        if (targetEdge < 0)
+            throw new IllegalStateException("Edge " + destinationPoint.getEdge().getId() + " is not in the road graph");
         Point targetCoordinate = destinationPoint.getProjectionPoint();
 
-        // A* algorithm data structures
-        PriorityQueue<NodeWithScore> openSet = new PriorityQueue<>(Comparator.comparingDouble(n -> n.fScore));
-        Map<Long, Double> gScore = new HashMap<>();
-        Map<Long, NodeWithParent> cameFrom = new HashMap<>();
-        Set<Long> closedSet = new HashSet<>();
-
         // Initialize with both potential start nodes (multi-source)
-        gScore.put(startNodeA.getId(), 0.0);
-        gScore.put(startNodeB.getId(), 0.0);
-        openSet.add(new NodeWithScore(startNodeA, 0.0, calculateHeuristic(startNodeA, targetCoordinate)));
-        if (!startNodeB.getId().equals(startNodeA.getId())) {
-            openSet.add(new NodeWithScore(startNodeB, 0.0, calculateHeuristic(startNodeB, targetCoordinate)));
-        }
-
-        Node goalNode = null;
-
-        // Main A* loop
-        //noinspection ReassignedVariable
-        while (!openSet.isEmpty() && goalNode == null) {
-            NodeWithScore current = openSet.poll();
-
-            if (closedSet.contains(current.node.getId())) {
-                continue;
-            }
-
-            closedSet.add(current.node.getId());
-
-            // Check if we've reached one of the target nodes
-            if (targetNodeIds.contains(current.node.getId())) {
-                goalNode = current.node;
-                break;
-            }
-
-            // Process all connected edges
-            Set<Edge> allEdges = new HashSet<>();
-            allEdges.addAll(current.node.getOutgoingEdges());
-            allEdges.addAll(current.node.getIncomingEdges());
-
-            for (Edge edge : allEdges) {
-                // Skip if this is a one-way edge we can't traverse
-                if (edge.getDirection() == Edge.Direction.ONE_WAY &&
-                        edge.getEndNode().getId().equals(current.node.getId())) {
-                    continue;
-                }
-
-                // Determine the neighboring node
-                Node neighbor = edge.getStartNode().getId().equals(current.node.getId()) ?
-                        edge.getEndNode() : edge.getStartNode();
-
-                if (closedSet.contains(neighbor.getId())) {
-                    continue;
-                }
-
-                // Calculate new g-score
-                double edgeDistance = calculateDistance(
-                        current.node.getX(), current.node.getY(),
-                        neighbor.getX(), neighbor.getY()
-                );
-
-                double tentativeGScore = gScore.get(current.node.getId()) + edgeDistance;
-
-                if (!gScore.containsKey(neighbor.getId()) || tentativeGScore < gScore.get(neighbor.getId())) {
-                    cameFrom.put(neighbor.getId(), new NodeWithParent(current.node, edge));
-                    gScore.put(neighbor.getId(), tentativeGScore);
-
-                    double heuristic = calculateHeuristic(neighbor, targetCoordinate);
-                    double fScore = tentativeGScore + heuristic;
-
-                    openSet.add(new NodeWithScore(neighbor, tentativeGScore, fScore));
-                }
-            }
-        }
+        int[] sources = startNodeA == startNodeB ? new int[]{startNodeA} : new int[]{startNodeA, startNodeB};
+        int[] targets = new int[]{graph.edgeStart(targetEdge), graph.edgeEnd(targetEdge)};
+        // Near-identical requests reuse the cached node path; trimming below uses this request's projection
+        GraphPath path = network.routeCache().get(startNodeA, startNodeB, targetEdge,
+                destinationPoint.getDistanceFromStart(), () -> {
+                    GraphPath found = network.pathFinder().findPath(
+                            new RouteQuery(sources, targets, targetCoordinate.getX(), targetCoordinate.getY(), budget));
+                    if (found != null) routingStats.recordSearch(found);
+                    return found;
+                });
 
         // Path reconstruction and RouteStep creation
-        if (goalNode != null) {
-            List<Node> pathNodes = new ArrayList<>();
-            List<Edge> pathEdges = new ArrayList<>();
-
-            Node current = goalNode;
-
-            while (cameFrom.containsKey(current.getId())) {
-                pathNodes.addFirst(current);
-                NodeWithParent parent = cameFrom.get(current.getId());
-                pathEdges.addFirst(parent.edge);
-                current = parent.node;
-            }
-
-            // current is now the starting node selected by A*
-            Node chosenStart = current;
-            pathNodes.addFirst(chosenStart);
+        if (path != null) {
+            int[] pathNodes = path.nodes();
+            int[] pathEdges = path.edges();
+            // Steps are built from pathNodes[from, to); pathEdges[i - 1] leads into pathNodes[i]
+            int from = 0;
+            int to = pathNodes.length;
 
             // If the first two nodes are the two ends of the same initial edge (back-and-forth), trim the first node
-            if (pathNodes.size() >= 2) {
-                Node n0 = pathNodes.get(0);
-                Node n1 = pathNodes.get(1);
-                // If there is an edge in pathEdges that connects n0 and n1 and also both n0 and n1 are exactly the provided start edge ends
+            if (to - from >= 2) {
+                int n0 = pathNodes[from];
+                int n1 = pathNodes[from + 1];
                 boolean areEndsOfStartEdge =
-                        (n0.getId().equals(startNodeId) && n1.getId().equals(endNodeId)) ||
-                        (n0.getId().equals(endNodeId) && n1.getId().equals(startNodeId));
+                        (n0 == startNodeA && n1 == startNodeB) ||
+                        (n0 == startNodeB && n1 == startNodeA);
                 if (areEndsOfStartEdge) {
-                    // remove n0 and its edge to n1 so we start directly at n1
-                    pathNodes.remove(0);
-                    if (!pathEdges.isEmpty()) {
-                        pathEdges.remove(0);
-                    }
+                    // skip n0 and its edge to n1 so we start directly at n1
+                    from++;
                 }
             }
 
             // If the last traversed edge is the target edge and we ended at the far end beyond the projection,
             // trim the last node to avoid overshooting then backtracking to the projection point.
-            if (!pathEdges.isEmpty()) {
-                Edge lastEdge = pathEdges.get(pathEdges.size() - 1);
-                if (lastEdge.getId().equals(targetEdge.getId())) {
+            if (to - from >= 2) {
+                int lastEdge = pathEdges[to - 2];
+                if (lastEdge == targetEdge) {
                     // Determine which end of the target edge is closer to the projection
-                    double x1 = lastEdge.getStartNode().getX();
-                    double y1 = lastEdge.getStartNode().getY();
-                    double x2 = lastEdge.getEndNode().getX();
-                    double y2 = lastEdge.getEndNode().getY();
-                    double dx = x2 - x1;
-                    double dy = y2 - y1;
+                    int lastStart = graph.edgeStart(lastEdge);
+                    int lastEnd = graph.edgeEnd(lastEdge);
+                    double x1 = graph.x(lastStart);
+                    double y1 = graph.y(lastStart);
+                    double dx = graph.x(lastEnd) - x1;
+                    double dy = graph.y(lastEnd) - y1;
                     double len2 = dx * dx + dy * dy;
                     double t;
                     if (len2 == 0) {
@@ -185,74 +143,68 @@ public class RouteService implements MapInternalApi {
                     // Clamp t to [0,1]
                     t = Math.max(0, Math.min(1, t));
                     // If t < 0.5 the nearer end to projection is start; otherwise end
-                    Node nearerEnd = (t < 0.5) ? lastEdge.getStartNode() : lastEdge.getEndNode();
-                    // The path currently ends at pathNodes.get(pathNodes.size()-1). If that is not the nearer end, we overshot.
-                    if (!pathNodes.isEmpty()) {
-                        Node pathEnd = pathNodes.get(pathNodes.size() - 1);
-                        if (!pathEnd.getId().equals(nearerEnd.getId())) {
-                            // Remove the overshooting final node and its edge so we stop at the nearer end
-                            pathNodes.remove(pathNodes.size() - 1);
-                            pathEdges.remove(pathEdges.size() - 1);
-                        }
+                    int nearerEnd = (t < 0.5) ? lastStart : lastEnd;
+                    // If the path does not end at the nearer end, we overshot: stop at the nearer end
+                    if (pathNodes[to - 1] != nearerEnd) {
+                        to--;
                     }
                 }
             }
 
             // Create RouteSteps for each node in the path
-            for (int i = 0; i < pathNodes.size(); i++) {
-                Node node = pathNodes.get(i);
+            for (int i = from; i < to; i++) {
+                int node = pathNodes[i];
                 int speed;
                 String instruction;
 
-                if (i == 0) {
+                if (i == from) {
                     speed = currentSpeed;
                     instruction = "Start journey";
                 } else {
-                    Edge edge = pathEdges.get(i - 1);
-                    speed = edge.getSpeed();
-                    instruction = "Follow " + edge.getName();
+                    int edge = pathEdges[i - 1];
+                    speed = graph.edgeSpeed(edge);
+                    instruction = "Follow " + graph.edgeName(edge);
                 }
 
                 routeSteps.add(RouteStep.builder()
-                        .x(node.getX())
-                        .y(node.getY())
+                        .x((long) graph.x(node))
+                        .y((long) graph.y(node))
                         .speed(speed)
                         .instruction(instruction)
                         .build());
             }
 
-            // Add final step to target point
+            // Add final step to target point, in a straight line from where a search out of budget stopped
             routeSteps.add(RouteStep.builder()
                     .x((long) targetCoordinate.getX())
                     .y((long) targetCoordinate.getY())
-                    .speed(targetEdge.getSpeed())
-                    .instruction("Arrive at destination")
+                    .speed(graph.edgeSpeed(targetEdge))
+                    .instruction(path.partial() ? "Continue straight to destination" : "Arrive at destination")
                     .build());
         } else {
             // No path found - return one of the start nodes (A)
             routeSteps.add(RouteStep.builder()
-                    .x(startNodeA.getX())
-                    .y(startNodeA.getY())
+                    .x((long) graph.x(startNodeA))
+                    .y((long) graph.y(startNodeA))
                     .speed(currentSpeed)
                     .instruction("No route found")
                     .build());
         }
 
-        return routeSteps;
+        return new SearchResult(routeSteps, path != null && path.partial());
     }
 
-    private double calculateHeuristic(Node node, Point targetPoint) {
-        return calculateDistance(
-                node.getX(), node.getY(),
-                targetPoint.getX(), targetPoint.getY()
-        );
+    private int requireNode(RoadGraph graph, Long nodeId) {
+        int node = graph.indexOfNode(nodeId);
+        if (node < 0)
+            throw new IllegalStateException("Node " + nodeId + " is not in the road graph");
+        return node;
     }
 
     private double calculateDistance(double x1, double y1, double x2, double y2) {
-        return Math.sqrt(
-                Math.pow(y2 - y1, 2) +
-                        Math.pow(x2 - x1, 2)
-        );
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        return Math.sqrt(dx * dx + dy * dy);
     }
 
     private double calculateDistance(Point p1, Point p2) {
@@ -261,56 +213,128 @@ public class RouteService implements MapInternalApi {
 
     @Override
     public EdgeProjectionPoint findClosestEdge(Point point) {
+        return findClosestEdge(roadGraphProvider.getNetwork(), point);
+    }
 
-        List<Edge> candidateEdges;
-        int searchRadius = 100;
+    @Override
+    public String getMapVersion() {
+        return roadGraphProvider.getVersion();
+    }
 
-        do {
-            candidateEdges = edgeRepository.findEdgesInBoundingBox(point.getX(), point.getY(), searchRadius);
-            searchRadius *= 2;
-        } while (candidateEdges.isEmpty() && searchRadius < 2000);
+    @Override
+    public Point findProjectionPoint(Point point) {
+        EdgeSpatialIndex.Nearest nearest = roadGraphProvider.getNetwork().edgeIndex().nearest(point.getX(), point.getY());
+        return nearest != null ? new Point(nearest.x(), nearest.y()) : null;
+    }
 
-        if (candidateEdges.isEmpty()) {
-            return null; // TODO: throw exception
+    @Override
+    public RoadPosition matchToRoad(double x, double y, RoadPosition previous) {
+        RoadNetwork network = roadGraphProvider.getNetwork();
+        RoadGraph graph = network.graph();
+        EdgeSpatialIndex.Nearest nearest = null;
+        // -1 when the edge is gone after a map reload
+        int previousEdge = previous == null ? -1 : graph.indexOfEdge(previous.edgeId());
+        if (previousEdge >= 0) {
+            nearest = network.edgeIndex().nearestAround(previousEdge, x, y);
+            if (nearest.distance() > MATCH_TOLERANCE) nearest = null;
         }
+        if (nearest == null) nearest = network.edgeIndex().nearest(x, y);
+        if (nearest == null) return null;
+        return new RoadPosition(graph.edgeId(nearest.edge()), nearest.t(), nearest.x(), nearest.y(), nearest.distance());
+    }
 
-//        System.out.println("NUMBER OF CANDIDATES: " + candidateEdges.size() + " SEARCH RADIUS: " + searchRadius/2);
+    private EdgeProjectionPoint findClosestEdge(RoadNetwork network, Point point) {
+        RoadGraph graph = network.graph();
+        EdgeSpatialIndex.Nearest nearest = network.edgeIndex().nearest(point.getX(), point.getY());
+        if (nearest == null) {
+            return null; // TODO: throw exception
+        }
 
-        EdgeProjectionPoint closestProjection = null;
-        double minDistance = Double.MAX_VALUE;
+        int edge = nearest.edge();
+        return EdgeProjectionPoint.builder()
+                .projectionPoint(new Point(nearest.x(), nearest.y()))
+                .originalPoint(point)
+                .edge(new EdgeDTO(
+                        graph.edgeId(edge),
+                        graph.edgeName(edge),
+                        graph.nodeId(graph.edgeStart(edge)),
+                        graph.nodeId(graph.edgeEnd(edge)),
+                        graph.edgeSpeed(edge),
+                        graph.isOneWay(edge) ? Edge.Direction.ONE_WAY : Edge.Direction.TWO_WAY))
+                .distanceFromStart((int) (nearest.t() * graph.edgeLength(edge)))
+                .build();
+    }
 
-        for (Edge edge : candidateEdges) {
-            // Calculate projection point for this edge
-            EdgeProjectionPoint projection = getProjectionPoint(point, edge);
+    @Override
+    public TravelMatrix computeTravelMatrix(List<Point> origins, List<Point> destinations) {
+        RoadNetwork network = roadGraphProvider.getNetwork();
+        ContractionHierarchy hierarchy = network.hierarchy();
+        if (hierarchy == null)
+            throw new IllegalStateException("Travel matrix is unavailable without a contraction hierarchy");
+        requirePoints(origins, "origins");
+        requirePoints(destinations, "destinations");
+        // In long: two int sizes can overflow, and each cell costs two doubles
+        long cells = (long) origins.size() * destinations.size();
+        if (cells > matrixMaxCells)
+            throw new IllegalArgumentException("Travel matrix of " + cells + " cells exceeds the limit of " + matrixMaxCells);
+
+        EdgePosition[] from = snap(network, origins);
+        EdgePosition[] to = snap(network, destinations);
+        double[] distances = new double[from.length * to.length];
+        double[] durations = new double[from.length * to.length];
+        hierarchy.manyToMany(from, to, distances, durations);
+        return new TravelMatrix(from.length, to.length, distances, durations);
+    }
 
-            // Calculate actual distance from original point to projection point
-            double distance = Math.sqrt(
-                    Math.pow(projection.getProjectionPoint().getX() - point.getX(), 2) +
-                            Math.pow(projection.getProjectionPoint().getY() - point.getY(), 2)
-            );
+    @Override
+    public double[] computeTravelTimesTo(List<Point> origins, Point destination) {
+        RoadNetwork network = roadGraphProvider.getNetwork();
+        EdgePosition target = snap(network, List.of(destination))[0];
+        return network.travelTimes().timesTo(target, snap(network, origins));
+    }
 
-            if (distance < minDistance) {
-                minDistance = distance;
-                closestProjection = projection;
-            }
+    private static void requirePoints(List<Point> points, String name) {
+        if (points == null || points.isEmpty())
+            throw new IllegalArgumentException("At least one of " + name + " is required");
+        for (Point point : points) {
+            if (point == null)
+                throw new IllegalArgumentException("Null point in " + name);
         }
+    }
 
-        return closestProjection;
+    private EdgePosition[] snap(RoadNetwork network, List<Point> points) {
+        EdgePosition[] positions = new EdgePosition[points.size()];
+        for (int i = 0; i < positions.length; i++) {
+            Point point = points.get(i);
+            EdgeSpatialIndex.Nearest nearest = network.edgeIndex().nearest(point.getX(), point.getY());
+            if (nearest == null)
+                throw new IllegalStateException("Road graph has no edges");
+            positions[i] = new EdgePosition(nearest.edge(), nearest.t());
+        }
+        return positions;
     }
 
     @Override
     public boolean isAtExpectedOrProjection(Point actual, Point expected) {
+        return isAtExpectedOrProjection(actual, expected, null);
+    }
+
+    @Override
+    public boolean isAtExpectedOrProjection(Point actual, Point expected, Point expectedProjection) {
         final double TOLERANCE = 3.0;
 
         // Check if actual point close to expected point?
         double directDistance = calculateDistance(actual, expected);
         if (directDistance <= TOLERANCE) return true;
 
-        EdgeProjectionPoint projectionPoint = findClosestEdge(expected);
-        if (projectionPoint == null) return false;
+        Point projection = expectedProjection;
+        if (projection == null) {
+            EdgeProjectionPoint projectionPoint = findClosestEdge(expected);
+            if (projectionPoint == null) return false;
+            projection = projectionPoint.getProjectionPoint();
+        }
 
         // Calculate distance between actual point and projection point
-        Point projection = projectionPoint.getProjectionPoint();
         double projectionDistance = calculateDistance(actual, projection);
 
         return projectionDistance <= TOLERANCE;
@@ -341,27 +365,4 @@ public class RouteService implements MapInternalApi {
                 .distanceFromStart(distanceFromStart)
                 .build();
     }
-
-    // Helper classes for A* algorithm
-    private static class NodeWithScore {
-        private final Node node;
-        private final double gScore;
-        private final double fScore;
-
-        public NodeWithScore(Node node, double gScore, double fScore) {
-            this.node = node;
-            this.gScore = gScore;
-            this.fScore = fScore;
-        }
-    }
-
-    private static class NodeWithParent {
-        private final Node node;
-        private final Edge edge;
-
-        public NodeWithParent(Node node, Edge edge) {
-            this.node = node;
-            this.edge = edge;
-        }
-    }
 }
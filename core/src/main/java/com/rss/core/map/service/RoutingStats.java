@@ -0,0 +1,55 @@
+package com.rss.core.map.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.rss.core.map.graph.GraphPath;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for route searches, searches that ran out of budget and the route cache of the current map version,
+ * exposed through {@code GET /api/map/stats}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoutingStats {
+    private final RoadGraphProvider roadGraphProvider;
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder settledNodes = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    void recordSearch(GraphPath path) {
+        searches.increment();
+        settledNodes.add(path.settledNodes());
+        if (path.partial()) budgetExhausted.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        long count = searches.sum();
+        long settled = settledNodes.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("engine", roadGraphProvider.getEngine());
+        stats.put("liveTraffic", roadGraphProvider.isTrafficEnabled());
+        stats.put("searches", count);
+        stats.put("settledNodes", settled);
+        stats.put("avgSettledNodes", count == 0 ? 0.0 : (double) settled / count);
+        stats.put("budgetExhausted", budgetExhausted.sum());
+
+        RoadNetwork network = roadGraphProvider.getNetwork();
+        CacheStats cache = network.routeCache().stats();
+        Map<String, Object> cacheStats = new LinkedHashMap<>();
+        cacheStats.put("mapVersion", network.version());
+        cacheStats.put("size", network.routeCache().size());
+        cacheStats.put("hits", cache.hitCount());
+        cacheStats.put("misses", cache.missCount());
+        cacheStats.put("evictions", cache.evictionCount());
+        cacheStats.put("evictedBytes", cache.evictionWeight());
+        cacheStats.put("hitRate", cache.hitRate());
+        stats.put("routeCache", cacheStats);
+        return stats;
+    }
+}
@@ -0,0 +1,116 @@
+package com.rss.core.map.service;
+
+import com.rss.core.map.RoadPosition;
+import com.rss.core.map.TrafficInternalApi;
+import com.rss.core.map.graph.RoadGraph;
+import com.rss.core.map.graph.TrafficModel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live traffic from the driver location stream. Location writes only enqueue the matched position; a scheduled
+ * drain feeds the queue into a {@link TrafficModel} of the current road network, and every publish interval the
+ * model's travel times replace the network's edge weights and its cached routes are dropped. A publish without new
+ * observations is skipped unless fading estimates moved some edge by more than {@value #FADE_TOLERANCE} of its
+ * published cost, so an idle fleet does not clear the route cache.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrafficService implements TrafficInternalApi {
+    private static final int MAX_PENDING = 65_536;
+    private static final double FADE_TOLERANCE = 0.05;
+
+    private final RoadGraphProvider roadGraphProvider;
+
+    @Value("${map.traffic.enabled:false}")
+    private boolean enabled;
+
+    @Value("${map.traffic.decay-seconds:300}")
+    private long decaySeconds;
+
+    private record Sample(long driverId, RoadPosition position, long at) {
+    }
+
+    private final Queue<Sample> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Owned by the scheduled tasks, which hold the monitor
+    private RoadNetwork modelNetwork;
+    private TrafficModel model;
+    private boolean observed;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void recordDriverPosition(long driverId, RoadPosition position) {
+        if (!enabled) return;
+        if (pendingCount.incrementAndGet() > MAX_PENDING) {
+            pendingCount.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        pending.offer(new Sample(driverId, position, System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${map.traffic.drain-interval-ms:250}")
+    public synchronized void drain() {
+        if (!enabled) return;
+        TrafficModel current = currentModel();
+        RoadGraph graph = modelNetwork.graph();
+        Sample sample;
+        while ((sample = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            RoadPosition position = sample.position();
+            // Edge ids outlive a map reload, indices do not
+            int edge = graph.indexOfEdge(position.edgeId());
+            if (edge >= 0 && current.observe(sample.driverId(), edge, position.t(), position.distance(), sample.at()))
+                observed = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${map.traffic.publish-interval-ms:5000}")
+    public synchronized void publish() {
+        if (!enabled) return;
+        drain();
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) log.warn("Traffic queue full, dropped {} driver positions", lost);
+
+        RoadNetwork network = modelNetwork;
+        double[] times = model.travelTimes(System.currentTimeMillis());
+        if (!observed && !faded(network.traffic().current(), times)) return;
+        observed = false;
+        network.traffic().publish(times);
+        network.routeCache().invalidateAll();
+    }
+
+    private static boolean faded(double[] published, double[] times) {
+        for (int e = 0; e < times.length; e++) {
+            if (Math.abs(times[e] - published[e]) > FADE_TOLERANCE * published[e]) return true;
+        }
+        return false;
+    }
+
+    // A model belongs to one network; a map reload starts over on free-flow speeds
+    private TrafficModel currentModel() {
+        RoadNetwork network = roadGraphProvider.getNetwork();
+        if (network != modelNetwork) {
+            model = new TrafficModel(network.graph(), network.edgeIndex(), decaySeconds * 1000);
+            modelNetwork = network;
+            observed = false;
+        }
+        return model;
+    }
+}
@@ -1,19 +1,22 @@
 package com.rss.core.trip.application.service;
 
 import com.rss.core.location.LocationInternalApi;
+import com.rss.core.location.NearbyDriver;
+import com.rss.core.map.MapInternalApi;
 import com.rss.core.trip.application.port.in.RequestDriverService;
 import com.rss.core.trip.application.port.out.NotificationService;
 
 import com.rss.core.trip.domain.entity.Trip;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.Point;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -21,11 +24,18 @@ import java.util.concurrent.TimeUnit;
 public class RequestDriverServiceImpl implements RequestDriverService {
     private final StringRedisTemplate redisTemplate;
     private final LocationInternalApi locationInternalApi;
+    private final MapInternalApi mapInternalApi;
     private final NotificationService notificationService;
 
     private final int BATCH_SIZE = 5; // number of drivers to notify at once
     @Value("${driver.request.expiry.seconds:180}")
     private int driverRequestExpirySeconds; // configurable for tests
+    @Value("${driver.request.max-candidates:5}")
+    private int maxCandidates; // only the drivers with the shortest ETA to the pickup are requested
+    @Value("${driver.request.search-pool:20}")
+    private int searchPool; // nearest drivers by straight-line distance whose ETA is computed
+    @Value("${driver.request.max-radius:5000}")
+    private double maxSearchRadius; // in map units
     private final String DRIVER_REQUEST_KEY = "driver:request:"; // driver_requests:{tripId} -> set of driverIds
 
     @Override
@@ -37,31 +47,65 @@ public class RequestDriverServiceImpl implements RequestDriverService {
             Thread.currentThread().interrupt();
         }
 
-        Set<Long> driverIds = locationInternalApi.findNearbyDrivers(
+        List<NearbyDriver> nearby = locationInternalApi.findNearestDrivers(
                 trip.getStartPoint().getX(),
-                trip.getStartPoint().getY());
+                trip.getStartPoint().getY(),
+                searchPool,
+                maxSearchRadius);
 
-        if (driverIds.isEmpty()) {
+        if (nearby.isEmpty()) {
             System.out.println("[RequestDriverService] No drivers available for trip " + trip.getId());
             return; // No drivers available in range
         }
 
+        List<Long> candidates = rankByEta(nearby, trip.getStartPoint());
+        if (candidates.isEmpty()) {
+            System.out.println("[RequestDriverService] No driver can reach the pickup of trip " + trip.getId());
+            return;
+        }
+
         // Store driver IDs in Redis set with expiration
         String key = DRIVER_REQUEST_KEY + trip.getId();
-        for (Long driverId : driverIds) {
+        for (Long driverId : candidates) {
             redisTemplate.opsForSet().add(key, driverId.toString());
         }
         redisTemplate.expire(key, driverRequestExpirySeconds, TimeUnit.SECONDS);
 
         // Notify drivers in batches
-        notifyDriversInBatches(driverIds, trip.getId());
+        notifyDriversInBatches(candidates, trip.getId());
+    }
+
+    /**
+     * Orders drivers by road travel time to the pickup and keeps the best {@code maxCandidates}.
+     * All ETAs come from a single search on the map, from the positions the driver search returned; drivers
+     * that cannot reach the pickup at all are left out.
+     */
+    private List<Long> rankByEta(List<NearbyDriver> nearby, Point pickup) {
+        List<Long> located = new ArrayList<>(nearby.size());
+        List<Point> positions = new ArrayList<>(nearby.size());
+        for (NearbyDriver driver : nearby) {
+            located.add(driver.driverId());
+            positions.add(new Point(driver.x(), driver.y()));
+        }
+
+        double[] etas = mapInternalApi.computeTravelTimesTo(positions, pickup);
+        List<Integer> order = new ArrayList<>(located.size());
+        for (int i = 0; i < located.size(); i++) {
+            if (Double.isFinite(etas[i])) order.add(i);
+        }
+        order.sort(Comparator.comparingDouble(i -> etas[i]));
+
+        List<Long> ranked = new ArrayList<>(Math.min(maxCandidates, order.size()));
+        for (int i = 0; i < order.size() && ranked.size() < maxCandidates; i++) {
+            ranked.add(located.get(order.get(i)));
+        }
+        return ranked;
     }
 
     /**
      * Notify drivers in batches to avoid overwhelming the notification service
      */
-    private void notifyDriversInBatches(Set<Long> driverIds, Long tripId) {
-        List<Long> driverIdList = new ArrayList<>(driverIds);
+    private void notifyDriversInBatches(List<Long> driverIdList, Long tripId) {
 
         for (int i = 0; i < driverIdList.size(); i += BATCH_SIZE) {
             int end = Math.min(i + BATCH_SIZE, driverIdList.size());
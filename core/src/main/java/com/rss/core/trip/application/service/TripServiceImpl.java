@@ -46,6 +46,10 @@ public class TripServiceImpl implements TripService, TripInternalApi {
                 .status(TripStatus.MATCHING)
                 .startPoint(start)
                 .endPoint(end)
+                // Snapped once so start and end validation are plain distance checks
+                .projectionMapVersion(mapInternalApi.getMapVersion())
+                .startProjection(mapInternalApi.findProjectionPoint(start))
+                .endProjection(mapInternalApi.findProjectionPoint(end))
                 .createdAt(LocalDateTime.now())
                 .build();
 
@@ -107,7 +111,8 @@ public class TripServiceImpl implements TripService, TripInternalApi {
             log.error("driver {} location is null, cant start trip {}", trip.getDriverId(), trip.getId());
             throw new IllegalStateException("Driver location not found");
         }
-        if(!mapInternalApi.isAtExpectedOrProjection(driverLocation, trip.getStartPoint()))
+        if(!mapInternalApi.isAtExpectedOrProjection(driverLocation, trip.getStartPoint(),
+                currentProjection(trip, trip.getStartProjection())))
             log.warn("driver {} is NOT at user location, started trip {}, driverLocation={}, expectedLocation={}",
                     trip.getDriverId(), trip.getId(), driverLocation, trip.getStartPoint());
 
@@ -134,7 +139,8 @@ public class TripServiceImpl implements TripService, TripInternalApi {
             log.error("driver {} location is null, cant end trip {}", trip.getDriverId(), trip.getId());
             throw new IllegalStateException("Driver location not found");
         }
-        if(!mapInternalApi.isAtExpectedOrProjection(driverLocation, trip.getEndPoint()))
+        if(!mapInternalApi.isAtExpectedOrProjection(driverLocation, trip.getEndPoint(),
+                currentProjection(trip, trip.getEndProjection())))
             log.warn("driver {} is NOT at destination, ending trip {}, actual={}, expected={}",
                     trip.getDriverId(), trip.getId(), driverLocation, trip.getEndPoint());
 
@@ -182,6 +188,11 @@ public class TripServiceImpl implements TripService, TripInternalApi {
                 .toList();
     }
 
+    // A projection snapped on another map version may be off the roads now; null makes the check snap again
+    private Point currentProjection(Trip trip, Point projection) {
+        return mapInternalApi.getMapVersion().equals(trip.getProjectionMapVersion()) ? projection : null;
+    }
+
     private TripDto toDto(Trip trip) {
         if (trip == null) return null;
 
@@ -33,6 +33,17 @@ public class Trip {
     @Column(name = "end_point", nullable = false)
     private Point endPoint;
 
+    // Road projections of the start and end points, snapped once when the trip is created
+    @Column(name = "start_projection")
+    private Point startProjection;
+
+    @Column(name = "end_projection")
+    private Point endProjection;
+
+    // Map version the projections were snapped on; after a map reload they are snapped again
+    @Column(name = "projection_map_version")
+    private String projectionMapVersion;
+
     private Long driverId;
 
     @Column(name = "created_at", nullable = false)
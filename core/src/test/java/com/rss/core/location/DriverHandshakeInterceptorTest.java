@@ -0,0 +1,99 @@
+package com.rss.core.location;
+
+import com.rss.core.account.application.port.out.JwtService;
+import com.rss.core.account.domain.entity.Driver;
+import com.rss.core.account.domain.entity.Rider;
+import com.rss.core.account.domain.entity.User;
+import com.rss.core.account.domain.repository.UserRepository;
+import com.rss.core.common.component.AuthenticationFacade;
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DriverHandshakeInterceptorTest {
+    private final JwtService jwtService = mock(JwtService.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final DriverHandshakeInterceptor interceptor =
+            new DriverHandshakeInterceptor(new AuthenticationFacade(jwtService, userRepository));
+
+    private final MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        when(jwtService.extractUsername("driver-token")).thenReturn("driver@example.com");
+        when(jwtService.extractUsername("rider-token")).thenReturn("rider@example.com");
+        when(jwtService.extractUsername("invalid-token")).thenThrow(new MalformedJwtException("Malformed"));
+        when(userRepository.findByEmail("driver@example.com"))
+                .thenReturn(Optional.of(User.builder().driver(Driver.builder().id(7L).build()).build()));
+        when(userRepository.findByEmail("rider@example.com"))
+                .thenReturn(Optional.of(User.builder().rider(Rider.builder().id(3L).build()).build()));
+    }
+
+    @Test
+    void beforeHandshake_withDriverToken_storesTheDriverId() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/driver");
+        request.addHeader("Authorization", "Bearer driver-token");
+
+        assertThat(handshake(request)).isTrue();
+        assertThat(attributes).containsEntry(DriverHandshakeInterceptor.DRIVER_ID_ATTRIBUTE, 7L);
+    }
+
+    @Test
+    void beforeHandshake_withTokenInTheQuery_storesTheDriverId() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/driver");
+        request.setQueryString("token=driver-token");
+
+        assertThat(handshake(request)).isTrue();
+        assertThat(attributes).containsEntry(DriverHandshakeInterceptor.DRIVER_ID_ATTRIBUTE, 7L);
+    }
+
+    @Test
+    void beforeHandshake_withoutToken_isUnauthorized() {
+        assertRejected(new MockHttpServletRequest("GET", "/ws/driver"));
+    }
+
+    @Test
+    void beforeHandshake_withInvalidToken_isUnauthorized() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/driver");
+        request.addHeader("Authorization", "Bearer invalid-token");
+
+        assertRejected(request);
+    }
+
+    @Test
+    void beforeHandshake_withRiderToken_isUnauthorized() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/driver");
+        request.setQueryString("token=rider-token");
+
+        assertRejected(request);
+    }
+
+    private void assertRejected(MockHttpServletRequest request) {
+        assertThat(handshake(request)).isFalse();
+        assertThat(servletResponse.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+        assertThat(attributes).isEmpty();
+    }
+
+    private boolean handshake(MockHttpServletRequest request) {
+        ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
+        boolean accepted = interceptor.beforeHandshake(new ServletServerHttpRequest(request), response,
+                mock(WebSocketHandler.class), attributes);
+        response.flush();
+        return accepted;
+    }
+}
@@ -0,0 +1,75 @@
+package com.rss.core.location;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DriverWebSocketHandlerTest {
+    private final LocationService locationService = mock(LocationService.class);
+    private final DriverWebSocketHandler handler = new DriverWebSocketHandler(locationService);
+
+    @Test
+    void locationFrame_updatesTheDriverLocation() throws Exception {
+        WebSocketSession session = session(7L);
+        handler.afterConnectionEstablished(session);
+
+        handler.handleTextMessage(session, new TextMessage("{\"x\":120.5,\"y\":340,\"degree\":90}"));
+
+        verify(locationService).updateDriverLocation(7L, 120.5, 340, 90);
+    }
+
+    @Test
+    void malformedFrame_isIgnored_andKeepsTheConnection() throws Exception {
+        WebSocketSession session = session(7L);
+        handler.afterConnectionEstablished(session);
+
+        handler.handleTextMessage(session, new TextMessage("{\"x\":"));
+        handler.handleTextMessage(session, new TextMessage("not json"));
+
+        verify(locationService, never()).updateDriverLocation(any(), anyDouble(), anyDouble(), anyDouble());
+        verify(session, never()).close(any());
+        assertThat(handler.isConnected(7L)).isTrue();
+    }
+
+    @Test
+    void reconnect_replacesTheOldSession_andItsLateCloseKeepsTheNewOne() throws Exception {
+        WebSocketSession old = session(7L);
+        WebSocketSession current = session(7L);
+        handler.afterConnectionEstablished(old);
+
+        handler.afterConnectionEstablished(current);
+        verify(old).close(any(CloseStatus.class));
+        handler.afterConnectionClosed(old, CloseStatus.NORMAL);
+
+        assertThat(handler.isConnected(7L)).isTrue();
+        assertThat(handler.sendToDriver(7L, "TRIP_REQUEST", Map.of("tripId", 100L))).isTrue();
+        verify(current).sendMessage(any(TextMessage.class));
+        verify(old, never()).sendMessage(any());
+
+        handler.afterConnectionClosed(current, CloseStatus.NORMAL);
+        assertThat(handler.isConnected(7L)).isFalse();
+    }
+
+    @Test
+    void sendToDriver_withoutSession_returnsFalse() {
+        assertThat(handler.sendToDriver(7L, "TRIP_REQUEST", Map.of())).isFalse();
+        assertThat(handler.isConnected(7L)).isFalse();
+    }
+
+    private static WebSocketSession session(Long driverId) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(DriverHandshakeInterceptor.DRIVER_ID_ATTRIBUTE, driverId);
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+}
@@ -0,0 +1,97 @@
+package com.rss.core.location;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "location.fleet.token=test-fleet-token",
+        "location.batch.max-bytes=1024"
+})
+class LocationControllerTest {
+    private static final String BATCH = """
+            [{"driverId":1,"x":100,"y":200,"degree":90,"ts":1000},
+             {"driverId":2,"x":300,"y":400,"degree":180,"ts":1000}]""";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private LocationController locationController;
+
+    @Autowired
+    private LocationInternalApi locationInternalApi;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @AfterEach
+    void cleanup() {
+        Objects.requireNonNull(redisTemplate.getConnectionFactory()).getConnection().serverCommands().flushDb();
+    }
+
+    @Test
+    void batch_withFleetToken_updatesAllDrivers() {
+        ResponseEntity<String> response = postBatch(BATCH, "test-fleet-token");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("2 driver locations updated.");
+        assertThat(locationInternalApi.getDriverLocation(1L)).isNotNull();
+        assertThat(locationInternalApi.getDriverLocation(2L)).isNotNull();
+    }
+
+    @Test
+    void batch_withMissingOrWrongToken_isForbiddenBeforeTheBodyIsRead() {
+        assertThat(postBatch(BATCH, null).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(postBatch(BATCH, "wrong-token").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        // A malformed body would be a 400 if it were parsed first
+        assertThat(postBatch("[{", "wrong-token").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(postBatch("[{", "test-fleet-token").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(locationInternalApi.getDriverLocation(1L)).isNull();
+    }
+
+    @Test
+    void batch_withoutConfiguredToken_isForbidden() {
+        ReflectionTestUtils.setField(locationController, "fleetToken", "");
+        try {
+            assertThat(postBatch(BATCH, "").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+            assertThat(postBatch(BATCH, "test-fleet-token").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        } finally {
+            ReflectionTestUtils.setField(locationController, "fleetToken", "test-fleet-token");
+        }
+        assertThat(locationInternalApi.getDriverLocation(1L)).isNull();
+    }
+
+    @Test
+    void batch_largerThanTheLimit_isRejected() {
+        String update = "{\"driverId\":1,\"x\":100,\"y\":200,\"degree\":90,\"ts\":1000}";
+        String oversized = "[" + String.join(",", Collections.nCopies(30, update)) + "]";
+
+        assertThat(oversized.length()).isGreaterThan(1024);
+        assertThat(postBatch(oversized, "test-fleet-token").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(locationInternalApi.getDriverLocation(1L)).isNull();
+    }
+
+    private ResponseEntity<String> postBatch(String body, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (token != null) headers.set("X-Fleet-Token", token);
+        return restTemplate.postForEntity("/api/drivers/location/batch", new HttpEntity<>(body, headers), String.class);
+    }
+}
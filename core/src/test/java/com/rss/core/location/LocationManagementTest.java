@@ -0,0 +1,201 @@
+package com.rss.core.location;
+
+import com.rss.core.map.MapInternalApi;
+import com.rss.core.map.RoadPosition;
+import com.rss.core.map.TrafficInternalApi;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class LocationManagementTest {
+    // Redis GEO stores positions to about 0.6 m, a fraction of a map unit
+    private static final double GEO_PRECISION = 0.2;
+
+    @Autowired
+    private LocationManagement locationManagement;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @MockitoBean
+    private MapInternalApi mapInternalApi;
+
+    @MockitoBean
+    private TrafficInternalApi trafficInternalApi;
+
+    @AfterEach
+    void cleanup() {
+        Objects.requireNonNull(redisTemplate.getConnectionFactory()).getConnection().serverCommands().flushDb();
+    }
+
+    @Test
+    void updateDriverLocation_thenGetDriverLocation_returnsPositionAndDegree() {
+        locationManagement.updateDriverLocation(7L, 120.5, 340.25, -90);
+
+        DriverLocation location = locationManagement.getDriverLocation(7L);
+
+        assertThat(location).isNotNull();
+        assertThat(location.getX()).isCloseTo(120.5, within(GEO_PRECISION));
+        assertThat(location.getY()).isCloseTo(340.25, within(GEO_PRECISION));
+        assertThat(location.getDegree()).isEqualTo(270.0);
+        assertThat(locationManagement.getDriverLocation(8L)).isNull();
+    }
+
+    @Test
+    void getAllDriverLocations_returnsFleetLargerThanOneSnapshotChunk() {
+        int drivers = 1500;
+        for (long id = 1; id <= drivers; id++) {
+            locationManagement.updateDriverLocation(id, id % 500, id / 5.0, id % 360);
+        }
+
+        Map<Long, DriverLocation> fleet = locationManagement.getAllDriverLocations();
+
+        assertThat(fleet).hasSize(drivers);
+        for (long id = 1; id <= drivers; id++) {
+            DriverLocation location = fleet.get(id);
+            assertThat(location).as("driver %d", id).isNotNull();
+            assertThat(location.getX()).isCloseTo(id % 500, within(GEO_PRECISION));
+            assertThat(location.getY()).isCloseTo(id / 5.0, within(GEO_PRECISION));
+            assertThat(location.getDegree()).isEqualTo(id % 360);
+        }
+    }
+
+    @Test
+    void updateDriverLocations_keepsTheLatestUpdatePerDriver_whateverTheOrder() {
+        int updated = locationManagement.updateDriverLocations(List.of(
+                new DriverLocationUpdate(1L, 10, 10, 10, 3000),
+                new DriverLocationUpdate(2L, 50, 60, 45, 1000),
+                new DriverLocationUpdate(1L, 30, 30, 30, 1000),
+                new DriverLocationUpdate(1L, 20, 20, 20, 2000),
+                new DriverLocationUpdate(null, 90, 90, 0, 5000)));
+
+        assertThat(updated).isEqualTo(2);
+        DriverLocation first = locationManagement.getDriverLocation(1L);
+        assertThat(first.getX()).isCloseTo(10, within(GEO_PRECISION));
+        assertThat(first.getY()).isCloseTo(10, within(GEO_PRECISION));
+        assertThat(first.getDegree()).isEqualTo(10.0);
+        DriverLocation second = locationManagement.getDriverLocation(2L);
+        assertThat(second.getX()).isCloseTo(50, within(GEO_PRECISION));
+        assertThat(second.getY()).isCloseTo(60, within(GEO_PRECISION));
+        assertThat(second.getDegree()).isEqualTo(45.0);
+    }
+
+    @Test
+    void findNearestDrivers_returnsTheKNearestWithinTheRadius_nearestFirst() {
+        // 10, 20, 30, 40 and 60 map units east of the center, registered out of order
+        locationManagement.updateDriverLocation(3L, 280, 250, 0);
+        locationManagement.updateDriverLocation(1L, 260, 250, 0);
+        locationManagement.updateDriverLocation(5L, 310, 250, 0);
+        locationManagement.updateDriverLocation(4L, 290, 250, 0);
+        locationManagement.updateDriverLocation(2L, 270, 250, 0);
+
+        List<NearbyDriver> nearest = locationManagement.findNearestDrivers(250, 250, 3, 50);
+
+        assertThat(nearest).extracting(NearbyDriver::driverId).containsExactly(1L, 2L, 3L);
+        assertThat(nearest.get(0).distance()).isCloseTo(10, within(GEO_PRECISION));
+        assertThat(nearest.get(1).distance()).isCloseTo(20, within(GEO_PRECISION));
+        assertThat(nearest.get(2).distance()).isCloseTo(30, within(GEO_PRECISION));
+        assertThat(nearest.get(2).x()).isCloseTo(280, within(GEO_PRECISION));
+        assertThat(nearest.get(2).y()).isCloseTo(250, within(GEO_PRECISION));
+
+        // The driver 60 units away stays outside a 50 unit radius however large k is
+        assertThat(locationManagement.findNearestDrivers(250, 250, 10, 50))
+                .extracting(NearbyDriver::driverId).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(locationManagement.findNearestDrivers(250, 250, 10, 5)).isEmpty();
+    }
+
+    @Test
+    void updateDriverLocations_clampsFutureTimestampsToServerTime() {
+        long before = System.currentTimeMillis();
+        locationManagement.updateDriverLocations(List.of(new DriverLocationUpdate(1L, 10, 10, 0, Long.MAX_VALUE)));
+        long after = System.currentTimeMillis();
+
+        String state = (String) redisTemplate.opsForHash().get("driver:state", "1");
+        long lastSeen = Long.parseLong(state.substring(state.indexOf(',') + 1));
+        assertThat(lastSeen).isBetween(before, after);
+    }
+
+    @Test
+    void updateDriverLocations_dropsEntriesOlderThanTheStoredLocation() {
+        when(trafficInternalApi.isEnabled()).thenReturn(true);
+        locationManagement.updateDriverLocation(1L, 100, 100, 90);
+        long stale = System.currentTimeMillis() - 60_000;
+
+        int updated = locationManagement.updateDriverLocations(List.of(
+                new DriverLocationUpdate(1L, 10, 10, 0, stale),
+                new DriverLocationUpdate(2L, 50, 60, 0, stale)));
+        locationManagement.matchPendingPositions();
+
+        assertThat(updated).isEqualTo(1);
+        DriverLocation first = locationManagement.getDriverLocation(1L);
+        assertThat(first.getX()).isCloseTo(100, within(GEO_PRECISION));
+        assertThat(first.getDegree()).isEqualTo(90.0);
+        verify(mapInternalApi, never()).matchToRoad(eq(10.0), eq(10.0), any());
+    }
+
+    @Test
+    void updateDriverLocation_withTrafficDisabled_doesNotMatchToTheRoad() {
+        locationManagement.updateDriverLocation(7L, 120, 340, 0);
+        locationManagement.matchPendingPositions();
+
+        verify(mapInternalApi, never()).matchToRoad(anyDouble(), anyDouble(), any());
+    }
+
+    @Test
+    void updateDriverLocation_succeeds_whileTheRoadGraphIsNotLoaded() {
+        when(trafficInternalApi.isEnabled()).thenReturn(true);
+        when(mapInternalApi.matchToRoad(anyDouble(), anyDouble(), any()))
+                .thenThrow(new IllegalStateException("Road graph is not loaded"));
+
+        locationManagement.updateDriverLocation(7L, 120, 340, 0);
+        locationManagement.matchPendingPositions();
+
+        assertThat(locationManagement.getDriverLocation(7L)).isNotNull();
+        assertThat(locationManagement.getRoadPosition(7L)).isNull();
+        verify(trafficInternalApi, never()).recordDriverPosition(anyLong(), any());
+    }
+
+    @Test
+    void matchPendingPositions_recordsTheOtherDrivers_whenOneMatchFails() {
+        RoadPosition position = new RoadPosition(20, 0.5, 50, 60, 0);
+        when(trafficInternalApi.isEnabled()).thenReturn(true);
+        when(mapInternalApi.matchToRoad(eq(10.0), eq(10.0), any())).thenThrow(new IllegalArgumentException("bad"));
+        when(mapInternalApi.matchToRoad(eq(50.0), eq(60.0), any())).thenReturn(position);
+
+        locationManagement.updateDriverLocations(List.of(
+                new DriverLocationUpdate(1L, 10, 10, 0, 1000),
+                new DriverLocationUpdate(2L, 50, 60, 0, 1000)));
+        locationManagement.matchPendingPositions();
+
+        // The scheduled run may have drained the positions first
+        verify(trafficInternalApi, timeout(1000)).recordDriverPosition(2L, position);
+        verify(trafficInternalApi, never()).recordDriverPosition(eq(1L), any());
+    }
+
+    @Test
+    void getRoadPosition_startsFromThePreviousMatch() {
+        RoadPosition first = new RoadPosition(10, 0.2, 20, 0, 1);
+        RoadPosition second = new RoadPosition(10, 0.3, 30, 0, 1);
+        when(mapInternalApi.matchToRoad(anyDouble(), anyDouble(), isNull())).thenReturn(first);
+        when(mapInternalApi.matchToRoad(anyDouble(), anyDouble(), eq(first))).thenReturn(second);
+        locationManagement.updateDriverLocation(7L, 20, 1, 0);
+
+        assertThat(locationManagement.getRoadPosition(7L)).isEqualTo(first);
+        locationManagement.updateDriverLocation(7L, 30, 1, 0);
+        assertThat(locationManagement.getRoadPosition(7L)).isEqualTo(second);
+        assertThat(locationManagement.getRoadPosition(8L)).isNull();
+    }
+}
@@ -9,10 +9,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -117,4 +124,52 @@ class MapControllerIntegrationTest {
             assertThat(nodeIds).contains(e.get("endId").asLong());
         }
     }
+
+    @Test
+    void getMap_shouldReturnNotModifiedForCurrentEtag() {
+        ResponseEntity<String> first = restTemplate.getForEntity("/api/map", String.class);
+        String etag = first.getHeaders().getETag();
+        assertThat(etag).isNotNull().startsWith("\"");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<String> second = restTemplate.exchange("/api/map", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getBody()).isNull();
+        assertThat(second.getHeaders().getETag()).isEqualTo(etag);
+    }
+
+    @Test
+    void getMap_shouldServeGzipWhenAccepted() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        ResponseEntity<byte[]> response = restTemplate.exchange("/api/map", HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            JsonNode root = objectMapper.readTree(in);
+            assertThat(root.get("version").asText()).isEqualTo(originalRoot.get("version").asText());
+            assertThat(root.get("nodes").size()).isEqualTo(originalRoot.get("nodes").size());
+        }
+    }
+
+    @Test
+    void matrix_rejectsEmptyNullAndOversizedPointLists() {
+        String point = "{\"x\":100,\"y\":100}";
+        String tooMany = String.join(",", Collections.nCopies(501, point));
+
+        assertThat(postMatrix("[" + point + "]", "[]").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(postMatrix("[" + point + ",null]", "[" + point + "]").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(postMatrix("[" + tooMany + "]", "[" + tooMany + "]").getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(postMatrix("[" + point + "]", "[" + point + "]").getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private ResponseEntity<String> postMatrix(String origins, String destinations) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String body = "{\"origins\":" + origins + ",\"destinations\":" + destinations + "}";
+        return restTemplate.postForEntity("/api/map/matrix", new HttpEntity<>(body, headers), String.class);
+    }
 }
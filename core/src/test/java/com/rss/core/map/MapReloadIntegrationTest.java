@@ -0,0 +1,141 @@
+package com.rss.core.map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.rss.core.map.dto.EdgeDTO;
+import com.rss.core.map.model.EdgeProjectionPoint;
+import com.rss.core.map.service.MapService;
+import com.rss.core.map.service.RoadGraphProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.geo.Point;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class MapReloadIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MapInternalApi mapInternalApi;
+
+    @MockitoSpyBean
+    private RoadGraphProvider roadGraphProvider;
+
+    @MockitoSpyBean
+    private MapService mapService;
+
+    @Test
+    void reload_switchesToNewVersionAndBack() throws IOException {
+        JsonNode original = objectMapper.readTree(new ClassPathResource("map.json").getInputStream());
+        String originalVersion = original.get("version").asText();
+        ObjectNode renamed = original.deepCopy();
+        renamed.put("version", originalVersion + "-reloaded");
+        String etagBefore = restTemplate.getForEntity("/api/map", String.class).getHeaders().getETag();
+        EdgeDTO edgeBefore = mapInternalApi.findClosestEdge(new Point(100, 100)).getEdge();
+
+        try {
+            ResponseEntity<String> reloaded = reload(renamed, "test-admin-token");
+            assertThat(reloaded.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(objectMapper.readTree(reloaded.getBody()).get("version").asText())
+                    .isEqualTo(originalVersion + "-reloaded");
+
+            ResponseEntity<String> map = restTemplate.getForEntity("/api/map", String.class);
+            assertThat(objectMapper.readTree(map.getBody()).get("version").asText())
+                    .isEqualTo(originalVersion + "-reloaded");
+            assertThat(map.getHeaders().getETag()).isNotEqualTo(etagBefore);
+
+            // Same content, so routing on the new generation snaps to the same edge
+            EdgeProjectionPoint after = mapInternalApi.findClosestEdge(new Point(100, 100));
+            assertThat(after.getEdge().getId()).isEqualTo(edgeBefore.getId());
+
+            assertThat(reload(renamed, "test-admin-token").getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        } finally {
+            assertThat(reload(original, "test-admin-token").getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+        assertThat(restTemplate.getForEntity("/api/map", String.class).getHeaders().getETag()).isEqualTo(etagBefore);
+    }
+
+    @Test
+    void reload_canBeRetriedAfterRebuildFailure() throws IOException {
+        JsonNode original = objectMapper.readTree(new ClassPathResource("map.json").getInputStream());
+        String originalVersion = original.get("version").asText();
+        ObjectNode renamed = original.deepCopy();
+        renamed.put("version", originalVersion + "-retried");
+
+        try {
+            // The new version is persisted, but routing stays on the old generation
+            doThrow(new RuntimeException("rebuild failed")).doCallRealMethod().when(roadGraphProvider).rebuild();
+            assertThat(reload(renamed, "test-admin-token").getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+            assertThat(roadGraphProvider.getVersion()).isEqualTo(originalVersion);
+
+            ResponseEntity<String> retried = reload(renamed, "test-admin-token");
+            assertThat(retried.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(objectMapper.readTree(retried.getBody()).get("previousVersion").asText()).isEqualTo(originalVersion);
+            assertThat(roadGraphProvider.getVersion()).isEqualTo(originalVersion + "-retried");
+        } finally {
+            assertThat(reload(original, "test-admin-token").getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+    }
+
+    @Test
+    void mapPayload_isReadOnce_whileRoutingLagsBehindThePersistedVersion() throws IOException {
+        JsonNode original = objectMapper.readTree(new ClassPathResource("map.json").getInputStream());
+        String originalVersion = original.get("version").asText();
+        ObjectNode renamed = original.deepCopy();
+        renamed.put("version", originalVersion + "-unrouted");
+
+        try {
+            doThrow(new RuntimeException("rebuild failed")).doCallRealMethod().when(roadGraphProvider).rebuild();
+            assertThat(reload(renamed, "test-admin-token").getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+            assertThat(roadGraphProvider.getVersion()).isEqualTo(originalVersion);
+
+            clearInvocations(mapService);
+            for (int i = 0; i < 3; i++) {
+                ResponseEntity<String> map = restTemplate.getForEntity("/api/map", String.class);
+                assertThat(objectMapper.readTree(map.getBody()).get("version").asText())
+                        .isEqualTo(originalVersion + "-unrouted");
+            }
+            verify(mapService, times(1)).getCurrentMap();
+        } finally {
+            assertThat(reload(original, "test-admin-token").getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+    }
+
+    @Test
+    void reload_requiresAdminToken() throws IOException {
+        JsonNode original = objectMapper.readTree(new ClassPathResource("map.json").getInputStream());
+
+        assertThat(reload(original, null).getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(reload(original, "wrong").getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    private ResponseEntity<String> reload(JsonNode map, String token) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (token != null) headers.set("X-Admin-Token", token);
+        return restTemplate.postForEntity("/api/map/reload",
+                new HttpEntity<>(objectMapper.writeValueAsBytes(map), headers), String.class);
+    }
+}
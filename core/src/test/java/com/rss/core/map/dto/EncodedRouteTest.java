@@ -0,0 +1,60 @@
+package com.rss.core.map.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rss.core.map.model.RouteStep;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncodedRouteTest {
+
+    private final List<RouteStep> route = List.of(
+            new RouteStep(120, 40, 50, "Start journey"),
+            new RouteStep(180, 40, 40, "Follow Main St"),
+            new RouteStep(180, -15, 40, "Follow Main St"),
+            new RouteStep(1650, 990, 60, "Follow Harbor Rd"),
+            new RouteStep(1648, 985, 60, "Arrive at destination"),
+            new RouteStep(1648, 985, 60, null));
+
+    @Test
+    void toEncodedRoute_matchesWireFormat() {
+        EncodedRoute encoded = EncodedRoute.toEncodedRoute(route);
+
+        // Shared with the simulation's decoder test
+        assertThat(encoded.getSteps()).isEqualTo("BvABUHgAAG38FtoPAwkAAANkAVACeAMFAQECAgMBBAEAAQ");
+        assertThat(encoded.getInstructions())
+                .containsExactly("Start journey", "Follow Main St", "Follow Harbor Rd", "Arrive at destination");
+    }
+
+    @Test
+    void toRouteSteps_restoresEveryStep() {
+        List<RouteStep> decoded = EncodedRoute.toEncodedRoute(route).toRouteSteps();
+
+        assertThat(decoded).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(route);
+    }
+
+    @Test
+    void toEncodedRoute_isMuchSmallerThanStepList() throws JsonProcessingException {
+        Random rng = new Random(1);
+        List<RouteStep> longRoute = new ArrayList<>();
+        long x = 800, y = 500;
+        for (int i = 0; i < 60; i++) {
+            x += rng.nextInt(80) - 40;
+            y += rng.nextInt(80) - 40;
+            longRoute.add(new RouteStep(x, y, i < 30 ? 50 : 40, "Follow Street " + i / 6));
+        }
+        ObjectMapper mapper = new ObjectMapper();
+
+        int plain = mapper.writeValueAsBytes(longRoute).length;
+        int encoded = mapper.writeValueAsBytes(EncodedRoute.toEncodedRoute(longRoute)).length;
+
+        assertThat(encoded).isLessThan(plain / 4);
+        assertThat(EncodedRoute.toEncodedRoute(longRoute).toRouteSteps())
+                .usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(longRoute);
+    }
+}
@@ -0,0 +1,74 @@
+package com.rss.core.map.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class EdgeSpatialIndexTest {
+
+    @Test
+    void nearest_matchesBruteForce_insideAndAroundTheMap() {
+        RoadGraph graph = TestRoadGraphs.fromMapJson();
+        EdgeSpatialIndex index = EdgeSpatialIndex.build(graph);
+
+        Random rng = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            // Include points well outside the map bounds
+            double x = rng.nextDouble() * (TestRoadGraphs.MAX_X + 400) - 200;
+            double y = rng.nextDouble() * (TestRoadGraphs.MAX_Y + 400) - 200;
+
+            double expected = Double.POSITIVE_INFINITY;
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                expected = Math.min(expected, distanceToEdge(graph, index, e, x, y));
+            }
+
+            EdgeSpatialIndex.Nearest nearest = index.nearest(x, y);
+            assertThat(nearest.distance()).isCloseTo(expected, within(1e-9));
+            assertThat(distanceToEdge(graph, index, nearest.edge(), x, y)).isCloseTo(expected, within(1e-9));
+            assertThat(Math.hypot(nearest.x() - x, nearest.y() - y)).isCloseTo(expected, within(1e-9));
+        }
+    }
+
+    @Test
+    void nearest_returnsNullForGraphWithoutEdges() {
+        RoadGraph graph = RoadGraph.builder().addNode(1, 10, 10).build();
+
+        assertThat(EdgeSpatialIndex.build(graph).nearest(0, 0)).isNull();
+    }
+
+    @Test
+    void nearestAround_matchesBruteForceOverEdgeAndItsNeighbours() {
+        RoadGraph graph = TestRoadGraphs.fromMapJson(7);
+        EdgeSpatialIndex index = EdgeSpatialIndex.build(graph);
+
+        Random rng = new Random(11);
+        for (int i = 0; i < 5_000; i++) {
+            int edge = rng.nextInt(graph.edgeCount());
+            double x = rng.nextDouble() * TestRoadGraphs.MAX_X;
+            double y = rng.nextDouble() * TestRoadGraphs.MAX_Y;
+
+            double expected = Double.POSITIVE_INFINITY;
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                boolean adjacent = e == edge
+                        || graph.edgeStart(e) == graph.edgeStart(edge) || graph.edgeStart(e) == graph.edgeEnd(edge)
+                        || graph.edgeEnd(e) == graph.edgeStart(edge) || graph.edgeEnd(e) == graph.edgeEnd(edge);
+                if (adjacent) expected = Math.min(expected, distanceToEdge(graph, index, e, x, y));
+            }
+
+            EdgeSpatialIndex.Nearest nearest = index.nearestAround(edge, x, y);
+            assertThat(nearest.distance()).isCloseTo(expected, within(1e-9));
+            assertThat(distanceToEdge(graph, index, nearest.edge(), x, y)).isCloseTo(expected, within(1e-9));
+        }
+    }
+
+    private static double distanceToEdge(RoadGraph graph, EdgeSpatialIndex index, int edge, double x, double y) {
+        double t = index.projection(edge, x, y);
+        int start = graph.edgeStart(edge), end = graph.edgeEnd(edge);
+        double px = graph.x(start) + t * (graph.x(end) - graph.x(start));
+        double py = graph.y(start) + t * (graph.y(end) - graph.y(start));
+        return Math.hypot(px - x, py - y);
+    }
+}
@@ -0,0 +1,54 @@
+package com.rss.core.map.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexedHeapTest {
+
+    @Test
+    void poll_returnsNodesInKeyOrder_withDecreaseKey() {
+        int n = 500;
+        IndexedHeap heap = new IndexedHeap(n);
+        double[] keys = new double[n];
+        Arrays.fill(keys, Double.POSITIVE_INFINITY);
+
+        Random rng = new Random(3);
+        for (int i = 0; i < 3 * n; i++) {
+            int node = rng.nextInt(n);
+            double key = rng.nextDouble() * 1000;
+            heap.push(node, key);
+            keys[node] = Math.min(keys[node], key);
+        }
+
+        double previous = Double.NEGATIVE_INFINITY;
+        int polled = 0;
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int node = heap.poll();
+            assertThat(key).isEqualTo(keys[node]).isGreaterThanOrEqualTo(previous);
+            assertThat(heap.contains(node)).isFalse();
+            previous = key;
+            polled++;
+        }
+        assertThat(polled).isEqualTo((int) Arrays.stream(keys).filter(k -> k != Double.POSITIVE_INFINITY).count());
+    }
+
+    @Test
+    void clear_forgetsQueuedNodes() {
+        IndexedHeap heap = new IndexedHeap(10);
+        heap.push(3, 1.0);
+        heap.push(7, 2.0);
+
+        heap.clear();
+        heap.push(7, 5.0);
+
+        assertThat(heap.contains(3)).isFalse();
+        assertThat(heap.peekKey()).isEqualTo(5.0);
+        assertThat(heap.poll()).isEqualTo(7);
+        assertThat(heap.isEmpty()).isTrue();
+    }
+}
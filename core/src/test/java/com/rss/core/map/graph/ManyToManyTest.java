@@ -0,0 +1,91 @@
+package com.rss.core.map.graph;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Checks the bucket many-to-many search of the contraction hierarchy against one Dijkstra per origin.
+ */
+class ManyToManyTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 7})
+    void manyToMany_matchesDijkstraPerOrigin(int oneWayEvery) {
+        RoadGraph graph = TestRoadGraphs.fromMapJson(oneWayEvery);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+
+        Random rng = new Random(11);
+        EdgePosition[] origins = new EdgePosition[30];
+        EdgePosition[] destinations = new EdgePosition[40];
+        for (int i = 0; i < origins.length; i++)
+            origins[i] = new EdgePosition(rng.nextInt(graph.edgeCount()), rng.nextDouble());
+        for (int j = 0; j < destinations.length; j++)
+            destinations[j] = new EdgePosition(rng.nextInt(graph.edgeCount()), rng.nextDouble());
+        // Same-edge pairs in both directions along the edge
+        destinations[0] = new EdgePosition(origins[0].edge(), Math.min(1, origins[0].t() + 0.2));
+        destinations[1] = new EdgePosition(origins[0].edge(), Math.max(0, origins[0].t() - 0.2));
+
+        double[] distances = new double[origins.length * destinations.length];
+        double[] durations = new double[origins.length * destinations.length];
+        hierarchy.manyToMany(origins, destinations, distances, durations);
+
+        for (int i = 0; i < origins.length; i++) {
+            double[] nodeDist = dijkstra(graph, origins[i]);
+            for (int j = 0; j < destinations.length; j++) {
+                double expected = expectedDistance(graph, origins[i], destinations[j], nodeDist);
+                double actual = distances[i * destinations.length + j];
+                if (expected == Double.POSITIVE_INFINITY) {
+                    assertThat(actual).isInfinite();
+                    assertThat(durations[i * destinations.length + j]).isInfinite();
+                } else {
+                    assertThat(actual).isCloseTo(expected, within(1e-6));
+                    assertThat(durations[i * destinations.length + j]).isGreaterThanOrEqualTo(0);
+                }
+            }
+        }
+    }
+
+    private static double expectedDistance(RoadGraph graph, EdgePosition origin, EdgePosition target, double[] nodeDist) {
+        int f = target.edge();
+        double best = nodeDist[graph.edgeStart(f)] + target.t() * graph.edgeLength(f);
+        if (!graph.isOneWay(f))
+            best = Math.min(best, nodeDist[graph.edgeEnd(f)] + (1 - target.t()) * graph.edgeLength(f));
+        if (f == origin.edge()) {
+            double delta = target.t() - origin.t();
+            if (delta >= 0 || !graph.isOneWay(f)) best = Math.min(best, Math.abs(delta) * graph.edgeLength(f));
+        }
+        return best;
+    }
+
+    private static double[] dijkstra(RoadGraph graph, EdgePosition origin) {
+        double[] dist = new double[graph.nodeCount()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        MinHeap heap = new MinHeap(64);
+        int e = origin.edge();
+        dist[graph.edgeEnd(e)] = (1 - origin.t()) * graph.edgeLength(e);
+        heap.push(graph.edgeEnd(e), dist[graph.edgeEnd(e)]);
+        if (!graph.isOneWay(e) && origin.t() * graph.edgeLength(e) < dist[graph.edgeStart(e)]) {
+            dist[graph.edgeStart(e)] = origin.t() * graph.edgeLength(e);
+            heap.push(graph.edgeStart(e), dist[graph.edgeStart(e)]);
+        }
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int u = heap.poll();
+            if (key > dist[u]) continue;
+            for (int a = graph.firstOut(u), end = graph.endOut(u); a < end; a++) {
+                double d = key + graph.edgeLength(graph.outEdge(a));
+                if (d < dist[graph.outHead(a)]) {
+                    dist[graph.outHead(a)] = d;
+                    heap.push(graph.outHead(a), d);
+                }
+            }
+        }
+        return dist;
+    }
+}
@@ -0,0 +1,116 @@
+package com.rss.core.map.graph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Cross-checks the alternative engines against plain A* on the bundled map.
+ */
+class RoutingEnginesTest {
+    private static final int QUERIES = 1000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 7})
+    void contractionHierarchy_matchesAStar(int oneWayEvery) {
+        RoadGraph graph = TestRoadGraphs.fromMapJson(oneWayEvery);
+        crossCheck(graph, ContractionHierarchy.build(graph), false);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 7})
+    void landmarkHeuristic_matchesAStar_withFewerSettledNodes(int oneWayEvery) {
+        RoadGraph graph = TestRoadGraphs.fromMapJson(oneWayEvery);
+        long[] settled = crossCheck(graph, new AStarSearch(graph, Landmarks.select(graph, 8)), false);
+
+        assertThat(settled[1]).isLessThan(settled[0]);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 7})
+    void bidirectionalAStar_matchesAStar_withFewerSettledNodes(int oneWayEvery) {
+        RoadGraph graph = TestRoadGraphs.fromMapJson(oneWayEvery);
+        long[] settled = crossCheck(graph, new BidirectionalAStarSearch(graph), false);
+
+        assertThat(settled[1]).isLessThan(settled[0]);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 7})
+    void chainCompression_matchesAStar_withFewerSettledNodes(int oneWayEvery) {
+        RoadGraph graph = TestRoadGraphs.fromMapJson(oneWayEvery);
+        ChainCompressedSearch compressed = ChainCompressedSearch.build(graph);
+        long[] settled = crossCheck(graph, compressed, true);
+
+        assertThat(compressed.junctionCount()).isLessThan(graph.nodeCount());
+        assertThat(settled[1]).isLessThan(settled[0]);
+    }
+
+    @Test
+    void chainCompression_onWeights_matchesAStarOnTheSameWeights() {
+        RoadGraph graph = TestRoadGraphs.fromMapJson(7);
+        EdgeWeights weights = EdgeWeights.travelTime(graph);
+        AStarSearch astar = new AStarSearch(graph, weights);
+        ChainCompressedSearch compressed = ChainCompressedSearch.build(graph, weights);
+
+        Random rng = new Random(3);
+        for (int round = 0; round < 3; round++) {
+            double[] costs = weights.current().clone();
+            for (int e = 0; e < costs.length; e++) costs[e] *= 1 + rng.nextInt(4);
+            weights.publish(costs);
+            for (int i = 0; i < 200; i++) {
+                RouteQuery query = TestRoadGraphs.query(graph,
+                        rng.nextInt(graph.edgeCount()), rng.nextInt(graph.edgeCount()), rng.nextDouble());
+                GraphPath expected = astar.findPath(query);
+                GraphPath actual = compressed.findPath(query);
+                if (expected == null) {
+                    assertThat(actual).isNull();
+                    continue;
+                }
+                assertThat(actual.cost()).isCloseTo(expected.cost(), within(1e-6));
+                assertThat(actual.nodes()).isEqualTo(expected.nodes());
+                assertThat(actual.edges()).isEqualTo(expected.edges());
+            }
+        }
+    }
+
+    /**
+     * Runs the same random queries through A* and the given engine, asserting equal costs and valid paths.
+     *
+     * @param sameRoute also require A*'s nodes and edges; chain compression relaxes the same arcs in the same
+     *                  order, while other engines may pick a different route among equal-cost ones
+     * @return total settled nodes of A* and of the engine
+     */
+    private long[] crossCheck(RoadGraph graph, PathFinder engine, boolean sameRoute) {
+        AStarSearch astar = new AStarSearch(graph);
+        long[] settled = new long[2];
+        Random rng = new Random(42);
+        for (int i = 0; i < QUERIES; i++) {
+            RouteQuery query = TestRoadGraphs.query(graph,
+                    rng.nextInt(graph.edgeCount()), rng.nextInt(graph.edgeCount()), rng.nextDouble());
+
+            GraphPath expected = astar.findPath(query);
+            GraphPath actual = engine.findPath(query);
+
+            if (expected == null) {
+                assertThat(actual).isNull();
+                continue;
+            }
+            assertThat(actual).isNotNull();
+            assertThat(actual.cost()).isCloseTo(expected.cost(), within(1e-6));
+            assertThat(TestRoadGraphs.walk(graph, query, actual)).isCloseTo(actual.cost(), within(1e-6));
+            if (sameRoute) {
+                assertThat(actual.nodes()).isEqualTo(expected.nodes());
+                assertThat(actual.edges()).isEqualTo(expected.edges());
+            }
+            settled[0] += expected.settledNodes();
+            settled[1] += actual.settledNodes();
+        }
+        return settled;
+    }
+}
@@ -0,0 +1,115 @@
+package com.rss.core.map.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SearchBudgetTest {
+    private static final int MAX_SETTLED = 20;
+
+    @Test
+    void searchesOutOfBudget_returnPartialPathTowardsTheTarget() {
+        RoadGraph graph = TestRoadGraphs.fromMapJson(7);
+        AStarSearch unlimited = new AStarSearch(graph);
+        List<PathFinder> engines = List.of(
+                new AStarSearch(graph),
+                new AStarSearch(graph, Landmarks.select(graph, 8)),
+                new BidirectionalAStarSearch(graph),
+                ChainCompressedSearch.build(graph));
+
+        Random rng = new Random(9);
+        int partial = 0;
+        for (int i = 0; i < 300; i++) {
+            RouteQuery query = TestRoadGraphs.query(graph,
+                    rng.nextInt(graph.edgeCount()), rng.nextInt(graph.edgeCount()), rng.nextDouble());
+            GraphPath full = unlimited.findPath(query);
+            RouteQuery budgeted = new RouteQuery(query.sources(), query.targets(), query.targetX(), query.targetY(),
+                    new SearchBudget(MAX_SETTLED, Long.MAX_VALUE));
+
+            for (PathFinder engine : engines) {
+                GraphPath path = engine.findPath(budgeted);
+                if (path == null) {
+                    assertThat(full).isNull();
+                    continue;
+                }
+                assertThat(path.settledNodes()).isLessThanOrEqualTo(MAX_SETTLED);
+                if (!path.partial()) {
+                    assertThat(TestRoadGraphs.walk(graph, query, path)).isCloseTo(path.cost(), within(1e-6));
+                    continue;
+                }
+                partial++;
+                // Only the bidirectional search can have met the other side before the budget ran out
+                if (!(engine instanceof BidirectionalAStarSearch)) assertThat(query.isTarget(path.target())).isFalse();
+                assertThat(query.sources()).contains(path.source());
+                assertThat(walkPartial(graph, query, path)).isCloseTo(path.cost(), within(1e-6));
+            }
+        }
+        assertThat(partial).isPositive();
+    }
+
+    @Test
+    void bidirectionalOutOfBudgetAfterMeeting_returnsCompletePathMarkedPartial() {
+        RoadGraph graph = TestRoadGraphs.fromMapJson(7);
+        AStarSearch unlimited = new AStarSearch(graph);
+        BidirectionalAStarSearch search = new BidirectionalAStarSearch(graph);
+
+        Random rng = new Random(9);
+        int met = 0;
+        for (int i = 0; i < 300; i++) {
+            RouteQuery query = TestRoadGraphs.query(graph,
+                    rng.nextInt(graph.edgeCount()), rng.nextInt(graph.edgeCount()), rng.nextDouble());
+            GraphPath full = unlimited.findPath(query);
+            RouteQuery budgeted = new RouteQuery(query.sources(), query.targets(), query.targetX(), query.targetY(),
+                    new SearchBudget(MAX_SETTLED, Long.MAX_VALUE));
+
+            GraphPath path = search.findPath(budgeted);
+            if (path == null || !path.partial() || !query.isTarget(path.target())) continue;
+            met++;
+            assertThat(TestRoadGraphs.walk(graph, query, path)).isCloseTo(path.cost(), within(1e-6));
+            assertThat(path.cost()).isGreaterThanOrEqualTo(full.cost() - 1e-6);
+        }
+        assertThat(met).isPositive();
+    }
+
+    @Test
+    void passedDeadline_stopsTheSearch() {
+        RoadGraph graph = TestRoadGraphs.fromMapJson();
+        AStarSearch search = new AStarSearch(graph);
+        // A query long enough for the search to read the clock, which happens every 64 settled nodes
+        Random rng = new Random(1);
+        RouteQuery query;
+        GraphPath full;
+        do {
+            query = TestRoadGraphs.query(graph,
+                    rng.nextInt(graph.edgeCount()), rng.nextInt(graph.edgeCount()), rng.nextDouble());
+            full = search.findPath(query);
+        } while (full == null || full.settledNodes() <= 64);
+        RouteQuery expired = new RouteQuery(query.sources(), query.targets(), query.targetX(), query.targetY(),
+                new SearchBudget(Integer.MAX_VALUE, System.nanoTime() - 1));
+
+        GraphPath path = search.findPath(expired);
+
+        assertThat(path.partial()).isTrue();
+        assertThat(path.settledNodes()).isEqualTo(64);
+    }
+
+    // Length along the path plus the straight line from its end to the target point
+    private static double walkPartial(RoadGraph graph, RouteQuery query, GraphPath path) {
+        int[] nodes = path.nodes();
+        int[] edges = path.edges();
+        assertThat(nodes).hasSize(edges.length + 1);
+        double length = 0;
+        for (int i = 0; i < edges.length; i++) {
+            int e = edges[i];
+            boolean forward = graph.edgeStart(e) == nodes[i] && graph.edgeEnd(e) == nodes[i + 1];
+            boolean backward = !graph.isOneWay(e) && graph.edgeEnd(e) == nodes[i] && graph.edgeStart(e) == nodes[i + 1];
+            assertThat(forward || backward).isTrue();
+            length += graph.edgeLength(e);
+        }
+        return length + graph.distance(path.target(), query.targetX(), query.targetY());
+    }
+}
@@ -0,0 +1,97 @@
+package com.rss.core.map.graph;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Builds road graphs from the bundled map.json without Spring or a database,
+ * normalized the same way MapService stores them.
+ */
+final class TestRoadGraphs {
+    static final int MAX_X = 1700;
+    static final int MAX_Y = 1000;
+
+    private TestRoadGraphs() {
+    }
+
+    static RoadGraph fromMapJson() {
+        return fromMapJson(0);
+    }
+
+    /**
+     * @param oneWayEvery mark every n-th edge (by id) as one-way to exercise directed routing; 0 keeps all two-way
+     */
+    static RoadGraph fromMapJson(int oneWayEvery) {
+        JsonNode root;
+        try {
+            root = new ObjectMapper().readTree(new ClassPathResource("map.json").getInputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        JsonNode nodes = root.get("nodes");
+        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE;
+        long maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+        for (JsonNode n : nodes) {
+            minX = Math.min(minX, n.get("x").asLong());
+            minY = Math.min(minY, n.get("y").asLong());
+            maxX = Math.max(maxX, n.get("x").asLong());
+            maxY = Math.max(maxY, n.get("y").asLong());
+        }
+        double scaleX = maxX == minX ? 0d : (double) MAX_X / (maxX - minX);
+        double scaleY = maxY == minY ? 0d : (double) MAX_Y / (maxY - minY);
+
+        RoadGraph.Builder builder = RoadGraph.builder();
+        for (JsonNode n : nodes) {
+            long x = Math.min(MAX_X, Math.max(0, Math.round((n.get("x").asLong() - minX) * scaleX)));
+            long y = Math.min(MAX_Y, Math.max(0, Math.round((n.get("y").asLong() - minY) * scaleY)));
+            builder.addNode(n.get("id").asLong(), x, y);
+        }
+        for (JsonNode e : root.get("edges")) {
+            long id = e.get("id").asLong();
+            int speed = e.hasNonNull("speed") ? e.get("speed").asInt() : 50;
+            boolean oneWay = oneWayEvery > 0 && id % oneWayEvery == 0;
+            builder.addEdge(id, e.get("name").asText(), e.get("startId").asLong(), e.get("endId").asLong(), speed, oneWay);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Query from both ends of one edge to a point at fraction t along another edge.
+     */
+    static RouteQuery query(RoadGraph graph, int startEdge, int targetEdge, double t) {
+        int a = graph.edgeStart(targetEdge), b = graph.edgeEnd(targetEdge);
+        double x = graph.x(a) + t * (graph.x(b) - graph.x(a));
+        double y = graph.y(a) + t * (graph.y(b) - graph.y(a));
+        return new RouteQuery(
+                new int[]{graph.edgeStart(startEdge), graph.edgeEnd(startEdge)},
+                new int[]{a, b}, x, y);
+    }
+
+    /**
+     * Checks that consecutive nodes are joined by the listed edges in a legal direction
+     * and returns the path length up to the query target point.
+     */
+    static double walk(RoadGraph graph, RouteQuery query, GraphPath path) {
+        int[] nodes = path.nodes();
+        int[] edges = path.edges();
+        if (nodes.length != edges.length + 1)
+            throw new AssertionError("Path has " + nodes.length + " nodes but " + edges.length + " edges");
+        double length = 0;
+        for (int i = 0; i < edges.length; i++) {
+            int e = edges[i];
+            boolean forward = graph.edgeStart(e) == nodes[i] && graph.edgeEnd(e) == nodes[i + 1];
+            boolean backward = !graph.isOneWay(e) && graph.edgeEnd(e) == nodes[i] && graph.edgeStart(e) == nodes[i + 1];
+            if (!forward && !backward)
+                throw new AssertionError("Edge " + graph.edgeId(e) + " does not lead from node " + nodes[i] + " to " + nodes[i + 1]);
+            length += graph.edgeLength(e);
+        }
+        if (!query.isTarget(path.target()))
+            throw new AssertionError("Path does not end at a target node");
+        return length + graph.distance(path.target(), query.targetX(), query.targetY());
+    }
+}
@@ -0,0 +1,108 @@
+package com.rss.core.map.graph;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TrafficModelTest {
+    private static final long T0 = 1_000_000;
+
+    // A direct road 1-2 and a slightly longer detour 1-3-2, all at speed 50
+    private static RoadGraph triangle() {
+        return RoadGraph.builder()
+                .addNode(1, 0, 0)
+                .addNode(2, 100, 0)
+                .addNode(3, 50, 20)
+                .addEdge(10, "Direct", 1, 2, 50, false)
+                .addEdge(11, "Detour A", 1, 3, 50, false)
+                .addEdge(12, "Detour B", 3, 2, 50, false)
+                .build();
+    }
+
+    @Test
+    void observe_slowDriverLowersSpeedOfItsEdgeOnly() {
+        RoadGraph graph = triangle();
+        TrafficModel model = new TrafficModel(graph, EdgeSpatialIndex.build(graph), 300_000);
+        int direct = graph.indexOfEdge(10);
+
+        // 10 units per second along the direct road
+        assertThat(model.observe(7, 10, 0, T0)).isFalse();
+        for (int i = 1; i <= 5; i++) {
+            assertThat(model.observe(7, 10 + 10 * i, 0, T0 + 1000L * i)).isTrue();
+        }
+
+        double now = T0 + 5000;
+        assertThat(model.speed(direct, (long) now)).isLessThan(25).isGreaterThanOrEqualTo(10);
+        double[] times = model.travelTimes((long) now);
+        assertThat(times[direct]).isGreaterThan(graph.edgeTime(direct) * 2);
+        assertThat(times[graph.indexOfEdge(11)]).isEqualTo(graph.edgeTime(graph.indexOfEdge(11)));
+        assertThat(times[graph.indexOfEdge(12)]).isEqualTo(graph.edgeTime(graph.indexOfEdge(12)));
+    }
+
+    @Test
+    void speed_decaysBackToTheLimit() {
+        RoadGraph graph = triangle();
+        TrafficModel model = new TrafficModel(graph, EdgeSpatialIndex.build(graph), 60_000);
+        int direct = graph.indexOfEdge(10);
+        model.observe(7, 10, 0, T0);
+        model.observe(7, 15, 0, T0 + 1000);
+
+        double right = model.speed(direct, T0 + 1000);
+        assertThat(right).isLessThan(50);
+        assertThat(model.speed(direct, T0 + 61_000)).isCloseTo(50 - (50 - right) / Math.E, within(1e-9));
+        assertThat(model.speed(direct, T0 + 3_600_000)).isCloseTo(50, within(1e-6));
+    }
+
+    @Test
+    void observe_measuresAcrossTheSharedNodeOfAdjacentEdges() {
+        RoadGraph graph = triangle();
+        TrafficModel model = new TrafficModel(graph, EdgeSpatialIndex.build(graph), 300_000);
+        double detourLength = graph.edgeLength(graph.indexOfEdge(11));
+
+        // From the middle of 1-3 to the middle of 3-2 is one detour edge length, driven in 4 s
+        model.observe(7, 25, 10, T0);
+        assertThat(model.observe(7, 75, 10, T0 + 4000)).isTrue();
+
+        double observed = Math.max(5, Math.min(50, detourLength / 4));
+        double expected = 50 + 0.3 * (observed - 50);
+        assertThat(model.speed(graph.indexOfEdge(11), T0 + 4000)).isCloseTo(expected, within(1e-9));
+        assertThat(model.speed(graph.indexOfEdge(12), T0 + 4000)).isCloseTo(expected, within(1e-9));
+        assertThat(model.speed(graph.indexOfEdge(10), T0 + 4000)).isEqualTo(50);
+    }
+
+    @Test
+    void observe_skipsStandingStillLongGapsAndOffRoadPositions() {
+        RoadGraph graph = triangle();
+        TrafficModel model = new TrafficModel(graph, EdgeSpatialIndex.build(graph), 300_000);
+
+        model.observe(7, 10, 0, T0);
+        assertThat(model.observe(7, 10.1, 0, T0 + 1000)).isFalse();
+        assertThat(model.observe(7, 90, 0, T0 + 120_000)).isFalse();
+        assertThat(model.observe(7, 50, 500, T0 + 121_000)).isFalse();
+        assertThat(model.trackedDrivers()).isZero();
+
+        double[] times = model.travelTimes(T0 + 121_000);
+        for (int e = 0; e < graph.edgeCount(); e++) assertThat(times[e]).isEqualTo(graph.edgeTime(e));
+    }
+
+    @Test
+    void aStar_onPublishedWeights_avoidsCongestedEdge() {
+        RoadGraph graph = triangle();
+        EdgeWeights weights = EdgeWeights.travelTime(graph);
+        AStarSearch search = new AStarSearch(graph, weights);
+        int from = graph.indexOfNode(1), to = graph.indexOfNode(2);
+        RouteQuery query = new RouteQuery(new int[]{from}, new int[]{to}, 100, 0);
+
+        assertThat(search.findPath(query).edges()).containsExactly(graph.indexOfEdge(10));
+
+        double[] congested = weights.current().clone();
+        congested[graph.indexOfEdge(10)] *= 5;
+        weights.publish(congested);
+
+        GraphPath path = search.findPath(query);
+        assertThat(path.edges()).containsExactly(graph.indexOfEdge(11), graph.indexOfEdge(12));
+        assertThat(path.cost()).isCloseTo(congested[graph.indexOfEdge(11)] + congested[graph.indexOfEdge(12)],
+                within(1e-9));
+    }
+}
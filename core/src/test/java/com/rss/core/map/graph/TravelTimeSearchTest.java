@@ -0,0 +1,74 @@
+package com.rss.core.map.graph;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Checks the early-stopping reverse search against a full forward Dijkstra on travel time from each origin.
+ */
+class TravelTimeSearchTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 7})
+    void timesTo_matchesForwardDijkstraPerOrigin(int oneWayEvery) {
+        RoadGraph graph = TestRoadGraphs.fromMapJson(oneWayEvery);
+        TravelTimeSearch search = new TravelTimeSearch(graph);
+
+        Random rng = new Random(5);
+        for (int q = 0; q < 50; q++) {
+            EdgePosition target = new EdgePosition(rng.nextInt(graph.edgeCount()), rng.nextDouble());
+            EdgePosition[] origins = new EdgePosition[20];
+            for (int i = 0; i < origins.length; i++)
+                origins[i] = new EdgePosition(rng.nextInt(graph.edgeCount()), rng.nextDouble());
+            origins[0] = new EdgePosition(target.edge(), rng.nextDouble());
+
+            double[] times = search.timesTo(target, origins);
+
+            for (int i = 0; i < origins.length; i++) {
+                double expected = expectedTime(graph, origins[i], target);
+                if (expected == Double.POSITIVE_INFINITY) assertThat(times[i]).isInfinite();
+                else assertThat(times[i]).isCloseTo(expected, within(1e-9));
+            }
+        }
+    }
+
+    private static double expectedTime(RoadGraph graph, EdgePosition origin, EdgePosition target) {
+        double[] time = new double[graph.nodeCount()];
+        Arrays.fill(time, Double.POSITIVE_INFINITY);
+        MinHeap heap = new MinHeap(64);
+        int e = origin.edge();
+        time[graph.edgeEnd(e)] = (1 - origin.t()) * graph.edgeTime(e);
+        heap.push(graph.edgeEnd(e), time[graph.edgeEnd(e)]);
+        if (!graph.isOneWay(e) && origin.t() * graph.edgeTime(e) < time[graph.edgeStart(e)]) {
+            time[graph.edgeStart(e)] = origin.t() * graph.edgeTime(e);
+            heap.push(graph.edgeStart(e), time[graph.edgeStart(e)]);
+        }
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int u = heap.poll();
+            if (key > time[u]) continue;
+            for (int a = graph.firstOut(u), end = graph.endOut(u); a < end; a++) {
+                double t = key + graph.edgeTime(graph.outEdge(a));
+                if (t < time[graph.outHead(a)]) {
+                    time[graph.outHead(a)] = t;
+                    heap.push(graph.outHead(a), t);
+                }
+            }
+        }
+
+        int f = target.edge();
+        double best = time[graph.edgeStart(f)] + target.t() * graph.edgeTime(f);
+        if (!graph.isOneWay(f)) best = Math.min(best, time[graph.edgeEnd(f)] + (1 - target.t()) * graph.edgeTime(f));
+        if (f == e) {
+            double delta = target.t() - origin.t();
+            if (delta >= 0 || !graph.isOneWay(f)) best = Math.min(best, Math.abs(delta) * graph.edgeTime(f));
+        }
+        return best;
+    }
+}
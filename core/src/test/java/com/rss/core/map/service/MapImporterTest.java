@@ -0,0 +1,69 @@
+package com.rss.core.map.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Each import runs in the test transaction and is rolled back, leaving the loaded map untouched
+@SpringBootTest
+@Transactional
+class MapImporterTest {
+    private static final String NODES = """
+            "nodes": [{"id": 1, "name": "A", "x": 0, "y": 0}, {"id": 2, "name": "B", "x": 10, "y": 0}]""";
+
+    @Autowired
+    private MapImporter mapImporter;
+
+    @Test
+    void importMap_insertsNodesAndEdgesWithTheirIds() throws Exception {
+        MapImporter.ImportResult result = mapImporter.importMap(map(NODES + """
+                , "edges": [{"id": 5, "name": "Main", "startId": 1, "endId": 2}]"""));
+
+        assertThat(result.nodes()).isEqualTo(2);
+        assertThat(result.edges()).isEqualTo(1);
+    }
+
+    @Test
+    void importMap_rejectsEdgeWithoutId() {
+        assertThatThrownBy(() -> mapImporter.importMap(map(NODES + """
+                , "edges": [{"name": "Main", "startId": 1, "endId": 2}]""")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Edge Main has no id");
+    }
+
+    @Test
+    void importMap_rejectsDuplicateNodeId() {
+        assertThatThrownBy(() -> mapImporter.importMap(map("""
+                "nodes": [{"id": 1, "name": "A", "x": 0, "y": 0}, {"id": 1, "name": "B", "x": 10, "y": 0}]""")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Duplicate node id 1");
+    }
+
+    @Test
+    void importMap_rejectsDuplicateEdgeId() {
+        assertThatThrownBy(() -> mapImporter.importMap(map(NODES + """
+                , "edges": [{"id": 5, "startId": 1, "endId": 2}, {"id": 5, "startId": 2, "endId": 1}]""")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Duplicate edge id 5");
+    }
+
+    @Test
+    void importMap_rejectsEdgeToUnknownNode() {
+        // Edges listed before nodes are still checked against every node of the file
+        assertThatThrownBy(() -> mapImporter.importMap(map("""
+                "edges": [{"id": 5, "startId": 1, "endId": 3}], """ + NODES)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Edge 5 ends at unknown node 3");
+    }
+
+    private static ByteArrayResource map(String content) {
+        return new ByteArrayResource(("{\"version\": \"test\", " + content + "}").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,57 @@
+package com.rss.core.map.service;
+
+import com.rss.core.map.graph.RoadGraph;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MapSnapshotIntegrationTest {
+    private static final Path SNAPSHOT = createSnapshotDirectory().resolve("map.snapshot");
+
+    @Autowired
+    private RoadGraphProvider roadGraphProvider;
+
+    @DynamicPropertySource
+    static void snapshotPath(DynamicPropertyRegistry registry) {
+        registry.add("map.snapshot.path", SNAPSHOT::toString);
+    }
+
+    @Test
+    void rebuild_writesSnapshotFromDatabase_andLoadsItOnTheNextBuild() throws IOException {
+        Files.deleteIfExists(SNAPSHOT);
+
+        roadGraphProvider.rebuild();
+        RoadGraph fromDatabase = roadGraphProvider.getGraph();
+        assertThat(SNAPSHOT).isRegularFile();
+
+        // Only a graph built from the database rewrites the snapshot, so an untouched file means it was loaded
+        FileTime marker = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(SNAPSHOT, marker);
+        roadGraphProvider.rebuild();
+        RoadGraph fromSnapshot = roadGraphProvider.getGraph();
+
+        assertThat(Files.getLastModifiedTime(SNAPSHOT)).isEqualTo(marker);
+        assertThat(fromSnapshot).isNotSameAs(fromDatabase);
+        assertThat(fromSnapshot.nodeCount()).isEqualTo(fromDatabase.nodeCount());
+        assertThat(fromSnapshot.edgeCount()).isEqualTo(fromDatabase.edgeCount());
+    }
+
+    private static Path createSnapshotDirectory() {
+        try {
+            return Files.createTempDirectory("map-snapshot");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
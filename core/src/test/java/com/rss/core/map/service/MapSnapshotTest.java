@@ -0,0 +1,69 @@
+package com.rss.core.map.service;
+
+import com.rss.core.map.graph.RoadGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MapSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private final RoadGraph graph = RoadGraph.builder()
+            .addNode(10, 0, 0)
+            .addNode(11, 100, 0)
+            .addNode(12, 100, 50)
+            .addEdge(20, "Main St", 10, 11, 40, false)
+            .addEdge(21, null, 11, 12, 30, true)
+            .addEdge(22, "Main St", 12, 10, 50, false)
+            .build();
+
+    @Test
+    void write_thenOpen_restoresGraph() throws IOException {
+        Path path = dir.resolve("map.snapshot");
+
+        MapSnapshot.write(path, "v7", 500, 400, graph);
+        MapSnapshot snapshot = MapSnapshot.open(path);
+        RoadGraph restored = snapshot.toGraph();
+
+        assertThat(snapshot.matches("v7", 500, 400)).isTrue();
+        assertThat(snapshot.matches("v8", 500, 400)).isFalse();
+        assertThat(snapshot.matches("v7", 1700, 1000)).isFalse();
+        assertThat(restored.nodeCount()).isEqualTo(3);
+        assertThat(restored.edgeCount()).isEqualTo(3);
+        assertThat(restored.arcCount()).isEqualTo(graph.arcCount());
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            assertThat(restored.edgeId(e)).isEqualTo(graph.edgeId(e));
+            assertThat(restored.edgeName(e)).isEqualTo(graph.edgeName(e));
+            assertThat(restored.nodeId(restored.edgeStart(e))).isEqualTo(graph.nodeId(graph.edgeStart(e)));
+            assertThat(restored.nodeId(restored.edgeEnd(e))).isEqualTo(graph.nodeId(graph.edgeEnd(e)));
+            assertThat(restored.edgeSpeed(e)).isEqualTo(graph.edgeSpeed(e));
+            assertThat(restored.isOneWay(e)).isEqualTo(graph.isOneWay(e));
+        }
+        assertThat(restored.x(restored.indexOfNode(12))).isEqualTo(100);
+        assertThat(restored.y(restored.indexOfNode(12))).isEqualTo(50);
+        assertThat(restored.indexOfNode(13)).isEqualTo(-1);
+        assertThat(restored.indexOfEdge(21)).isEqualTo(graph.indexOfEdge(21));
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            assertThat(restored.endOut(v) - restored.firstOut(v)).isEqualTo(graph.endOut(v) - graph.firstOut(v));
+        }
+    }
+
+    @Test
+    void open_rejectsTruncatedFile() throws IOException {
+        Path path = dir.resolve("map.snapshot");
+        MapSnapshot.write(path, "v7", 500, 400, graph);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThatThrownBy(() -> MapSnapshot.open(path)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,40 @@
+package com.rss.core.map.service;
+
+import com.rss.core.map.graph.GraphPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteCacheTest {
+
+    private final GraphPath path = new GraphPath(new int[]{1, 2, 3}, new int[]{10, 11}, 42.0, 3);
+
+    @Test
+    void get_reusesPathWithinSameOffsetQuantum() {
+        RouteCache cache = new RouteCache(1 << 20, 5);
+        AtomicInteger searches = new AtomicInteger();
+
+        cache.get(1, 2, 7, 10, () -> { searches.incrementAndGet(); return path; });
+        GraphPath second = cache.get(2, 1, 7, 14, () -> { searches.incrementAndGet(); return path; });
+        cache.get(1, 2, 7, 15, () -> { searches.incrementAndGet(); return path; });
+
+        assertThat(second).isSameAs(path);
+        assertThat(searches).hasValue(2);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void get_doesNotCacheMissingPath() {
+        RouteCache cache = new RouteCache(1 << 20, 5);
+        AtomicInteger searches = new AtomicInteger();
+
+        cache.get(1, 2, 7, 0, () -> { searches.incrementAndGet(); return null; });
+        GraphPath second = cache.get(1, 2, 7, 0, () -> { searches.incrementAndGet(); return null; });
+
+        assertThat(second).isNull();
+        assertThat(searches).hasValue(2);
+    }
+}
@@ -0,0 +1,85 @@
+package com.rss.core.map.service;
+
+import com.rss.core.map.RoadPosition;
+import com.rss.core.map.graph.EdgeSpatialIndex;
+import com.rss.core.map.graph.EdgeWeights;
+import com.rss.core.map.graph.RoadGraph;
+import com.rss.core.map.graph.TravelTimeSearch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RouteServiceMatchTest {
+    // Two parallel roads 4 units apart, without a shared node
+    private final RoadGraph graph = RoadGraph.builder()
+            .addNode(1, 0, 0)
+            .addNode(2, 100, 0)
+            .addNode(3, 0, 4)
+            .addNode(4, 100, 4)
+            .addEdge(10, "South", 1, 2, 50, false)
+            .addEdge(20, "North", 3, 4, 50, false)
+            .build();
+
+    private final RoadGraphProvider provider = mock(RoadGraphProvider.class);
+    private final RouteService routeService = new RouteService(provider, new RoutingStats(provider));
+
+    @BeforeEach
+    void setUp() {
+        when(provider.getNetwork()).thenReturn(network(graph));
+    }
+
+    @Test
+    void matchToRoad_staysOnThePreviousEdge_withinTheTolerance() {
+        assertThat(routeService.matchToRoad(50, 2.5, null).edgeId()).isEqualTo(20);
+
+        RoadPosition position = routeService.matchToRoad(50, 2.5, onSouth());
+
+        assertThat(position.edgeId()).isEqualTo(10);
+        assertThat(position.t()).isEqualTo(0.5);
+        assertThat(position.distance()).isEqualTo(2.5);
+    }
+
+    @Test
+    void matchToRoad_searchesTheWholeMap_beyondTheTolerance() {
+        RoadPosition position = routeService.matchToRoad(50, 20, onSouth());
+
+        assertThat(position.edgeId()).isEqualTo(20);
+        assertThat(position.distance()).isEqualTo(16);
+    }
+
+    @Test
+    void matchToRoad_searchesTheWholeMap_afterAReloadRemovedThePreviousEdge() {
+        RoadGraph reloaded = RoadGraph.builder()
+                .addNode(3, 0, 4)
+                .addNode(4, 100, 4)
+                .addEdge(20, "North", 3, 4, 50, false)
+                .build();
+        when(provider.getNetwork()).thenReturn(network(reloaded));
+
+        RoadPosition position = routeService.matchToRoad(50, 0.5, onSouth());
+
+        assertThat(position.edgeId()).isEqualTo(20);
+        assertThat(position.distance()).isEqualTo(3.5);
+    }
+
+    @Test
+    void matchToRoad_beforeTheGraphIsLoaded_throws() {
+        when(provider.getNetwork()).thenThrow(new IllegalStateException("Road graph is not loaded"));
+
+        assertThatThrownBy(() -> routeService.matchToRoad(50, 0, null)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static RoadPosition onSouth() {
+        return new RoadPosition(10, 0.4, 40, 0, 0);
+    }
+
+    private static RoadNetwork network(RoadGraph graph) {
+        EdgeWeights traffic = EdgeWeights.travelTime(graph);
+        return new RoadNetwork("v1", graph, null, null, EdgeSpatialIndex.build(graph), new RouteCache(1 << 20, 5),
+                traffic, new TravelTimeSearch(graph, traffic));
+    }
+}
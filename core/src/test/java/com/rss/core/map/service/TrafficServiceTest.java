@@ -0,0 +1,48 @@
+package com.rss.core.map.service;
+
+import com.rss.core.map.graph.EdgeSpatialIndex;
+import com.rss.core.map.graph.EdgeWeights;
+import com.rss.core.map.graph.GraphPath;
+import com.rss.core.map.graph.RoadGraph;
+import com.rss.core.map.graph.TravelTimeSearch;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrafficServiceTest {
+
+    private final RoadGraph graph = RoadGraph.builder()
+            .addNode(1, 0, 0)
+            .addNode(2, 100, 0)
+            .addNode(3, 50, 20)
+            .addEdge(10, "Direct", 1, 2, 50, false)
+            .addEdge(11, "Detour A", 1, 3, 50, false)
+            .addEdge(12, "Detour B", 3, 2, 50, false)
+            .build();
+
+    @Test
+    void publish_withoutObservations_keepsWeightsAndCachedRoutes() {
+        EdgeWeights traffic = EdgeWeights.travelTime(graph);
+        RouteCache cache = new RouteCache(1 << 20, 5);
+        RoadNetwork network = new RoadNetwork("v1", graph, null, null, EdgeSpatialIndex.build(graph), cache,
+                traffic, new TravelTimeSearch(graph, traffic));
+        RoadGraphProvider provider = mock(RoadGraphProvider.class);
+        when(provider.getNetwork()).thenReturn(network);
+        TrafficService service = new TrafficService(provider);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "decaySeconds", 300L);
+
+        GraphPath path = new GraphPath(new int[]{0, 1}, new int[]{0}, 2.0, 2);
+        cache.get(0, 1, 0, 0, () -> path);
+        double[] published = traffic.current();
+
+        service.publish();
+        service.publish();
+
+        assertThat(traffic.current()).isSameAs(published);
+        assertThat(cache.get(0, 1, 0, 0, () -> null)).isSameAs(path);
+    }
+}
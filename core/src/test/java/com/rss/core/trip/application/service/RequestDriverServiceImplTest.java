@@ -2,6 +2,8 @@ package com.rss.core.trip.application.service;
 
 import com.rss.core.location.LocationInternalApi;
 import com.rss.core.location.LocationService;
+import com.rss.core.location.NearbyDriver;
+import com.rss.core.map.MapInternalApi;
 import com.rss.core.trip.application.port.out.NotificationService;
 import com.rss.core.trip.domain.entity.Trip;
 import com.rss.core.trip.domain.entity.Trip.TripStatus;
@@ -26,7 +28,8 @@ import static org.mockito.Mockito.*;
 @SpringBootTest
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 @TestPropertySource(properties = {
-        "driver.request.expiry.seconds=2" // short TTL for expiry test
+        "driver.request.expiry.seconds=2", // short TTL for expiry test
+        "driver.request.max-candidates=4"
 })
 class RequestDriverServiceImplTest {
 
@@ -42,6 +45,9 @@ class RequestDriverServiceImplTest {
     @MockitoBean
     private LocationService locationService;
 
+    @MockitoBean
+    private MapInternalApi mapInternalApi;
+
     @MockitoBean
     private NotificationService notificationService;
 
@@ -56,29 +62,50 @@ class RequestDriverServiceImplTest {
                 .build();
     }
 
+    private void stubDrivers(Map<Long, Double> etaByDriver) {
+        // Positions carry the driver id in x; straight-line order is the insertion order
+        List<NearbyDriver> nearby = new ArrayList<>();
+        for (Long driverId : etaByDriver.keySet()) {
+            nearby.add(new NearbyDriver(driverId, driverId, 0, nearby.size()));
+        }
+        when(locationInternalApi.findNearestDrivers(anyDouble(), anyDouble(), anyInt(), anyDouble()))
+                .thenReturn(nearby);
+        // ETA is looked up by the x coordinate
+        when(mapInternalApi.computeTravelTimesTo(anyList(), any(Point.class)))
+                .thenAnswer(inv -> inv.<List<Point>>getArgument(0).stream()
+                        .mapToDouble(p -> etaByDriver.get((long) p.getX()))
+                        .toArray());
+    }
+
     @AfterEach
     void cleanup() {
         Objects.requireNonNull(redisTemplate.getConnectionFactory()).getConnection().serverCommands().flushDb();
     }
 
     @Test
-    void requestDriver_storesDriversInRedis_andNotifiesInBatches() {
+    void requestDriver_storesClosestDriversByEtaInRedis_andNotifiesThem() {
         // Given
         Long tripId = 100L;
         Trip trip = sampleTrip(tripId);
-        // 6 drivers
-        LinkedHashSet<Long> drivers = new LinkedHashSet<>(Arrays.asList(1L,2L,3L,4L,5L,6L));
-        when(locationInternalApi.findDriversWithinRadius(anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(drivers);
+        // 6 drivers, driver 6 cannot reach the pickup at all
+        Map<Long, Double> etas = new LinkedHashMap<>();
+        etas.put(1L, 90.0);
+        etas.put(2L, 12.0);
+        etas.put(3L, 45.0);
+        etas.put(4L, 30.0);
+        etas.put(5L, 60.0);
+        etas.put(6L, Double.POSITIVE_INFINITY);
+        stubDrivers(etas);
 
         // When
         requestDriverService.requestDriver(trip);
 
-        // Then - Redis set contains all drivers
-        String key = "driver_requests:" + tripId;
+        // Then - Redis set contains only the 4 drivers with the shortest ETA
+        String key = "driver:request:" + tripId;
         Set<String> stored = redisTemplate.opsForSet().members(key);
         assertThat(stored).isNotNull();
-        assertThat(stored).hasSize(6).containsExactlyInAnyOrder("1","2","3","4","5","6");
+        assertThat(stored).hasSize(4).containsExactlyInAnyOrder("2","4","3","5");
+        verify(notificationService).NotifyDriverRequest(List.of(2L, 4L, 3L, 5L), tripId);
 
         // TTL should be > 0 (set) and <= configured (1 second) or -1 if extremely fast retrieval before setting? Accept >0
         Long ttl = redisTemplate.getExpire(key, TimeUnit.SECONDS);
@@ -86,8 +113,45 @@ class RequestDriverServiceImplTest {
         assertThat(ttl).isGreaterThan(0);
 
         // membership helper
-        assertThat(requestDriverService.isDriverRequestedForTrip(1L, tripId)).isTrue();
-        assertThat(requestDriverService.isDriverRequestedForTrip(6L, tripId)).isTrue();
+        assertThat(requestDriverService.isDriverRequestedForTrip(2L, tripId)).isTrue();
+        assertThat(requestDriverService.isDriverRequestedForTrip(1L, tripId)).isFalse();
+        assertThat(requestDriverService.isDriverRequestedForTrip(6L, tripId)).isFalse();
+    }
+
+    @Test
+    void requestDriver_skipsUnreachableDrivers_whenFewerThanMaxCandidates() {
+        // Given
+        Long tripId = 150L;
+        Trip trip = sampleTrip(tripId);
+        // 3 drivers for 4 candidate slots, driver 2 cannot reach the pickup
+        Map<Long, Double> etas = new LinkedHashMap<>();
+        etas.put(1L, 40.0);
+        etas.put(2L, Double.POSITIVE_INFINITY);
+        etas.put(3L, 25.0);
+        stubDrivers(etas);
+
+        // When
+        requestDriverService.requestDriver(trip);
+
+        // Then
+        Set<String> stored = redisTemplate.opsForSet().members("driver:request:" + tripId);
+        assertThat(stored).containsExactlyInAnyOrder("3", "1");
+        verify(notificationService).NotifyDriverRequest(List.of(3L, 1L), tripId);
+    }
+
+    @Test
+    void requestDriver_noReachableDrivers_noRedisKeyCreated() {
+        // Given
+        Long tripId = 250L;
+        Trip trip = sampleTrip(tripId);
+        stubDrivers(Map.of(7L, Double.POSITIVE_INFINITY));
+
+        // When
+        requestDriverService.requestDriver(trip);
+
+        // Then
+        assertThat(redisTemplate.opsForSet().members("driver:request:" + tripId)).isNullOrEmpty();
+        verify(notificationService, never()).NotifyDriverRequest(anyList(), anyLong());
     }
 
     @Test
@@ -95,14 +159,14 @@ class RequestDriverServiceImplTest {
         // Given
         Long tripId = 200L;
         Trip trip = sampleTrip(tripId);
-        when(locationInternalApi.findDriversWithinRadius(anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(Collections.emptySet());
+        when(locationInternalApi.findNearestDrivers(anyDouble(), anyDouble(), anyInt(), anyDouble()))
+                .thenReturn(List.of());
 
         // When
         requestDriverService.requestDriver(trip);
 
         // Then - no redis member or notifications should be created
-        String key = "driver_requests:" + tripId;
+        String key = "driver:request:" + tripId;
         Set<String> members = redisTemplate.opsForSet().members(key);
         assertThat(members).isNullOrEmpty();
         verify(notificationService, never()).NotifyDriverRequest(anyList(), anyLong());
@@ -113,8 +177,7 @@ class RequestDriverServiceImplTest {
         // Given
         Long tripId = 300L;
         Trip trip = sampleTrip(tripId);
-        when(locationInternalApi.findDriversWithinRadius(anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(Set.of(11L));
+        stubDrivers(Map.of(11L, 20.0));
 
         // When
         requestDriverService.requestDriver(trip);
@@ -0,0 +1,100 @@
+package com.rss.core.trip.application.service;
+
+import com.rss.core.location.DriverLocation;
+import com.rss.core.location.LocationInternalApi;
+import com.rss.core.map.MapInternalApi;
+import com.rss.core.trip.application.port.in.RequestDriverService;
+import com.rss.core.trip.application.port.out.NotificationService;
+import com.rss.core.trip.domain.entity.Trip;
+import com.rss.core.trip.domain.entity.Trip.TripStatus;
+import com.rss.core.trip.domain.repository.TripRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.geo.Point;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class TripServiceImplTest {
+    private static final Point START = new Point(10, 20);
+    private static final Point END = new Point(30, 40);
+    private static final Point START_PROJECTION = new Point(10, 22);
+    private static final Point END_PROJECTION = new Point(31, 40);
+
+    private final TripRepository tripRepository = mock(TripRepository.class);
+    private final LocationInternalApi locationInternalApi = mock(LocationInternalApi.class);
+    private final MapInternalApi mapInternalApi = mock(MapInternalApi.class);
+
+    private final TripServiceImpl tripService = new TripServiceImpl(tripRepository, locationInternalApi,
+            mapInternalApi, mock(RequestDriverService.class), mock(TripMatchingTracker.class),
+            mock(NotificationService.class), mock(ApplicationEventPublisher.class));
+
+    @BeforeEach
+    void setUp() {
+        when(mapInternalApi.getMapVersion()).thenReturn("v1");
+        when(mapInternalApi.isAtExpectedOrProjection(any(), any(), any())).thenReturn(true);
+        when(locationInternalApi.getDriverLocation(7L)).thenReturn(new DriverLocation(10, 22, 0));
+    }
+
+    @Test
+    void createTrip_storesProjectionsWithTheirMapVersion() {
+        when(mapInternalApi.findProjectionPoint(START)).thenReturn(START_PROJECTION);
+        when(mapInternalApi.findProjectionPoint(END)).thenReturn(END_PROJECTION);
+
+        tripService.createTrip(1L, START, END);
+
+        ArgumentCaptor<Trip> saved = ArgumentCaptor.forClass(Trip.class);
+        verify(tripRepository).save(saved.capture());
+        assertThat(saved.getValue().getStartProjection()).isEqualTo(START_PROJECTION);
+        assertThat(saved.getValue().getEndProjection()).isEqualTo(END_PROJECTION);
+        assertThat(saved.getValue().getProjectionMapVersion()).isEqualTo("v1");
+    }
+
+    @Test
+    void startAndEndTrip_validateAgainstStoredProjections_withoutSnapping() {
+        Trip trip = trip(TripStatus.PICKING_UP, "v1");
+
+        tripService.startTrip(7L, 100L);
+        tripService.endTrip(7L, 100L);
+
+        assertThat(trip.getStatus()).isEqualTo(TripStatus.COMPLETED);
+        verify(mapInternalApi).isAtExpectedOrProjection(any(), eq(START), eq(START_PROJECTION));
+        verify(mapInternalApi).isAtExpectedOrProjection(any(), eq(END), eq(END_PROJECTION));
+        verify(mapInternalApi, never()).findProjectionPoint(any());
+        verify(mapInternalApi, never()).findClosestEdge(any());
+    }
+
+    @Test
+    void startTrip_snapsAgain_whenProjectionsAreFromAnotherMapVersion() {
+        trip(TripStatus.PICKING_UP, "v0");
+
+        tripService.startTrip(7L, 100L);
+
+        verify(mapInternalApi).isAtExpectedOrProjection(any(), eq(START), isNull());
+    }
+
+    private Trip trip(TripStatus status, String mapVersion) {
+        Trip trip = Trip.builder()
+                .id(100L)
+                .riderId(1L)
+                .driverId(7L)
+                .status(status)
+                .startPoint(START)
+                .endPoint(END)
+                .startProjection(START_PROJECTION)
+                .endProjection(END_PROJECTION)
+                .projectionMapVersion(mapVersion)
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(tripRepository.findByIdAndDriverId(100L, 7L)).thenReturn(Optional.of(trip));
+        return trip;
+    }
+}
@@ -22,6 +22,7 @@ public class DriverAgent implements Agent {
     private final AtomicBoolean running = new AtomicBoolean(true);
     private final CoreApiClient coreApiClient;
     private final TripRequestInbox tripRequestInbox;
+    private final LocationBatchReporter locationReporter;
     private final double X_COORD_MAX;
     private final double Y_COORD_MAX;
 
@@ -45,13 +46,15 @@ public class DriverAgent implements Agent {
                        Identity identity,
                        CoreApiClient coreApiClient,
                        TripRequestInbox tripRequestInbox,
-                       Double maxX, Double maxY) {
+                       Double maxX, Double maxY,
+                       LocationBatchReporter locationReporter) {
         this.id = id;
         this.clock = clock;
         this.rng = rng;
         this.identity = identity;
         this.coreApiClient = coreApiClient;
         this.tripRequestInbox = tripRequestInbox;
+        this.locationReporter = locationReporter;
         this.location = generateRandomPoint();
         this.X_COORD_MAX = maxX;
         this.Y_COORD_MAX = maxY;
@@ -263,6 +266,10 @@ public class DriverAgent implements Agent {
     }
 
     private void updateLocation() {
+        if (locationReporter != null) {
+            locationReporter.report(identity.getDriverId(), location, degree);
+            return;
+        }
         coreApiClient.updateLocation(location, degree, identity.getJwt());
     }
 
@@ -0,0 +1,74 @@
+package com.rss.simulation.agent;
+
+import com.rss.simulation.client.CoreApiClient;
+import com.rss.simulation.client.dto.LocationUpdate;
+import com.rss.simulation.client.dto.Point;
+import com.rss.simulation.clock.SimClock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects the positions reported by all driver agents and sends them to core in one batch request per
+ * interval, instead of one request per driver and tick. Only the latest position of each driver is sent.
+ */
+public class LocationBatchReporter implements Agent {
+    private final SimClock clock;
+    private final CoreApiClient coreApiClient;
+    private final String fleetToken;
+    private final long intervalMillis;
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    // Latest position per driver since the last flush
+    private final Map<Long, LocationUpdate> pending = new ConcurrentHashMap<>();
+
+    public LocationBatchReporter(SimClock clock, CoreApiClient coreApiClient, String fleetToken, long intervalMillis) {
+        this.clock = clock;
+        this.coreApiClient = coreApiClient;
+        this.fleetToken = fleetToken;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public void report(Long driverId, Point location, double degree) {
+        if (driverId == null) return;
+        pending.put(driverId, new LocationUpdate(driverId, location.x(), location.y(), degree,
+                clock.now().toEpochMilli()));
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running.get()) {
+                clock.sleep(Duration.ofMillis(intervalMillis));
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void stop() { running.set(false); }
+
+    @Override
+    public String name() { return "location-batch"; }
+
+    private void flush() {
+        if (pending.isEmpty()) return;
+        List<LocationUpdate> batch = new ArrayList<>(pending.size());
+        for (Long driverId : pending.keySet()) {
+            LocationUpdate update = pending.remove(driverId);
+            if (update != null) batch.add(update);
+        }
+        try {
+            // Wait for the response so a slow core gets at most one batch in flight
+            coreApiClient.updateLocations(batch, fleetToken).block();
+        } catch (Exception e) {
+            System.err.println("[LocationBatchReporter] failed to send " + batch.size() + " locations: " + e.getMessage());
+        }
+    }
+}
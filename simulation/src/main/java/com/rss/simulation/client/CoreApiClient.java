@@ -6,6 +6,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @Component
 public class CoreApiClient {
     private final WebClient client;
@@ -26,7 +28,9 @@ public class CoreApiClient {
     }
 
     public Mono<RouteResponse> getRoute(Point start, Point end, String jwt) {
-        return post("/api/map/route", new RouteRequest(start, end), jwt, RouteResponse.class);
+        // Compact route encoding: far fewer bytes and tokens to parse than a list of step objects
+        return post("/api/map/route?format=polyline", new RouteRequest(start, end), jwt, RouteResponse.class)
+                .map(RouteResponse::decoded);
     }
 
     public Mono<RouteResponse> getSimRoute(SimRouteRequest req, String jwt) {
@@ -38,6 +42,16 @@ public class CoreApiClient {
                 jwt, Void.class).subscribe();
     }
 
+    public Mono<String> updateLocations(List<LocationUpdate> updates, String fleetToken) {
+        return client.post()
+                .uri("/api/drivers/location/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Fleet-Token", fleetToken)
+                .bodyValue(updates)
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+
     public Mono<TripDto> requestTrip(Point start, Point end, String jwt) {
         return post("/api/trips", new CreateTripRequest(start, end), jwt, TripDto.class);
     }
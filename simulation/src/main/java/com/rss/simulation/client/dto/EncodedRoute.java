@@ -0,0 +1,54 @@
+package com.rss.simulation.client.dto;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+// corresponds to EncodedRoute in core service, requested with ?format=polyline
+public record EncodedRoute(String steps, List<String> instructions) {
+
+    /**
+     * Expands the varint stream back into directions: zigzag coordinate deltas, then run-length speeds.
+     * Instruction runs follow but are not needed for driving.
+     */
+    public List<Direction> decode() {
+        byte[] bytes = Base64.getUrlDecoder().decode(steps);
+        int[] position = {0};
+        int count = (int) varint(bytes, position);
+        long[] xs = new long[count];
+        long[] ys = new long[count];
+        long x = 0, y = 0;
+        for (int i = 0; i < count; i++) {
+            x += unzigzag(varint(bytes, position));
+            y += unzigzag(varint(bytes, position));
+            xs[i] = x;
+            ys[i] = y;
+        }
+
+        List<Direction> directions = new ArrayList<>(count);
+        for (long runs = varint(bytes, position); runs > 0; runs--) {
+            int speed = (int) unzigzag(varint(bytes, position));
+            for (long n = varint(bytes, position); n > 0; n--) {
+                int i = directions.size();
+                directions.add(new Direction(xs[i], ys[i], speed));
+            }
+        }
+        return directions;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long varint(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= bytes.length)
+                throw new IllegalArgumentException("Truncated encoded route");
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Malformed varint in encoded route");
+    }
+}
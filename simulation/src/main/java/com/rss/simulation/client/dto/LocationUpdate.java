@@ -0,0 +1,3 @@
+package com.rss.simulation.client.dto;
+
+public record LocationUpdate(Long driverId, double x, double y, double degree, long ts) {}
@@ -5,5 +5,12 @@ import java.util.List;
 public record RouteResponse(
     EdgeProjectionPoint startPointProjection,
     EdgeProjectionPoint destinationPointProjection,
-    List<Direction> route
-) {}
\ No newline at end of file
+    List<Direction> route,
+    EncodedRoute encodedRoute
+) {
+    // Same response with the compact route expanded into route
+    public RouteResponse decoded() {
+        if (encodedRoute == null) return this;
+        return new RouteResponse(startPointProjection, destinationPointProjection, encodedRoute.decode(), null);
+    }
+}
@@ -7,6 +7,9 @@ import org.springframework.stereotype.Component;
 @ConfigurationProperties(prefix = "core")
 public class CoreApiProperties {
   private String baseUrl = "http://localhost:8080";
+  private String fleetToken = "";
   public String getBaseUrl() { return baseUrl; }
   public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
+  public String getFleetToken() { return fleetToken; }
+  public void setFleetToken(String fleetToken) { this.fleetToken = fleetToken; }
 }
\ No newline at end of file
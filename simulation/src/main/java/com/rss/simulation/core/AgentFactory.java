@@ -4,9 +4,11 @@ import com.rss.simulation.agent.DriverAgent;
 import com.rss.simulation.agent.Identity;
 import com.rss.simulation.agent.Identity.Role;
 import com.rss.simulation.agent.IdentityFactory;
+import com.rss.simulation.agent.LocationBatchReporter;
 import com.rss.simulation.agent.RiderWorkload;
 import com.rss.simulation.client.CoreApiClient;
 import com.rss.simulation.clock.SimClock;
+import com.rss.simulation.config.CoreApiProperties;
 import com.rss.simulation.scenario.Scenario;
 import com.rss.simulation.trip.TripRequestInbox;
 import com.rss.simulation.trip.RiderAvailabilityInbox;
@@ -23,18 +25,32 @@ public class AgentFactory {
     private final CoreApiClient coreApiClient; // Ideally injected
     private final TripRequestInbox tripRequestInbox;
     private final RiderAvailabilityInbox riderAvailabilityInbox;
+    private final CoreApiProperties coreApiProperties;
 
-    public AgentFactory(IdentityFactory identityFactory, SimClock clock, CoreApiClient coreApiClient, TripRequestInbox tripRequestInbox, RiderAvailabilityInbox riderAvailabilityInbox) {
+    public AgentFactory(IdentityFactory identityFactory, SimClock clock, CoreApiClient coreApiClient, TripRequestInbox tripRequestInbox, RiderAvailabilityInbox riderAvailabilityInbox, CoreApiProperties coreApiProperties) {
         this.identityFactory = identityFactory;
         this.clock = clock;
         this.coreApiClient = coreApiClient;
         this.tripRequestInbox = tripRequestInbox;
         this.riderAvailabilityInbox = riderAvailabilityInbox;
+        this.coreApiProperties = coreApiProperties;
     }
 
-    public DriverAgent createDriver(int id, Random rng, double maxX, double maxY) {
+    /**
+     * @param locationReporter batches the driver's position updates; null to send each update on its own
+     */
+    public DriverAgent createDriver(int id, Random rng, double maxX, double maxY, LocationBatchReporter locationReporter) {
         var identity = identityFactory.createIdentity(id, Role.DRIVER);
-        return identity == null ? null : new DriverAgent(id, clock, rng, identity, coreApiClient, tripRequestInbox, maxX, maxY);
+        return identity == null ? null : new DriverAgent(id, clock, rng, identity, coreApiClient, tripRequestInbox, maxX, maxY, locationReporter);
+    }
+
+    /**
+     * @return the reporter sending all driver positions in batches, or null when batching is disabled
+     */
+    public LocationBatchReporter createLocationReporter(Scenario scenario) {
+        if (!scenario.getLocationBatch().isEnabled()) return null;
+        return new LocationBatchReporter(clock, coreApiClient, coreApiProperties.getFleetToken(),
+                scenario.getLocationBatch().getIntervalMillis());
     }
 
     public RiderWorkload createRiderWorkload(Scenario scenario, Random rng) {
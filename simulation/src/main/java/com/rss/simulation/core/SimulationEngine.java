@@ -1,6 +1,7 @@
 package com.rss.simulation.core;
 
 import com.rss.simulation.agent.DriverAgent;
+import com.rss.simulation.agent.LocationBatchReporter;
 import com.rss.simulation.agent.RiderWorkload;
 import com.rss.simulation.scenario.Scenario;
 import org.springframework.stereotype.Component;
@@ -31,6 +32,7 @@ public class SimulationEngine {
         );
 
         Random rng = new Random(scenario.getSeed());
+        LocationBatchReporter locationReporter = agentFactory.createLocationReporter(scenario);
 
         try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
             List<DriverAgent> drivers = new ArrayList<>();
@@ -45,7 +47,7 @@ public class SimulationEngine {
                 System.out.println("[SimulationEngine] Creating drivers: have=" + drivers.size() + ", need=" + remaining + " (attempt " + attempt + ")");
                 for (int i = drivers.size(); i < target; i++) {
                     try {
-                        var driver = agentFactory.createDriver(i + 1, new Random(rng.nextLong()), scenario.getMap().getMaxX(), scenario.getMap().getMaxY());
+                        var driver = agentFactory.createDriver(i + 1, new Random(rng.nextLong()), scenario.getMap().getMaxX(), scenario.getMap().getMaxY(), locationReporter);
                         if (driver != null) {
                             drivers.add(driver);
                         }
@@ -66,6 +68,9 @@ public class SimulationEngine {
                 tasks.add(() -> { d.run(); return null; });
             }
             tasks.add(() -> { riderWorkload.run(); return null; });
+            if (locationReporter != null) {
+                tasks.add(() -> { locationReporter.run(); return null; });
+            }
 
             // If duration is -1 run indefinitely by using invokeAll without timeout.
             if (scenario.getDurationSeconds() == -1) {
@@ -79,6 +84,7 @@ public class SimulationEngine {
             // After duration, request stop
             drivers.forEach(DriverAgent::stop);
             riderWorkload.stop();
+            if (locationReporter != null) locationReporter.stop();
 
             // Give them a moment to finish
             Thread.sleep(200);
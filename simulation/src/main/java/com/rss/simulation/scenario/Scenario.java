@@ -14,6 +14,7 @@ public class Scenario {
 
     private MapProperties map = new MapProperties();
     private TripProperties trip = new TripProperties();
+    private LocationBatchProperties locationBatch = new LocationBatchProperties();
 
     public int getDriverCount() { return driverCount; }
     public void setDriverCount(int driverCount) { this.driverCount = driverCount; }
@@ -36,6 +37,9 @@ public class Scenario {
     public TripProperties getTrip() { return trip; }
     public void setTrip(TripProperties trip) { this.trip = trip; }
 
+    public LocationBatchProperties getLocationBatch() { return locationBatch; }
+    public void setLocationBatch(LocationBatchProperties locationBatch) { this.locationBatch = locationBatch; }
+
     public static class MapProperties {
         private int maxX;
         private int maxY;
@@ -57,4 +61,15 @@ public class Scenario {
         public int getMaxDistance() { return maxDistance; }
         public void setMaxDistance(int maxDistance) { this.maxDistance = maxDistance; }
     }
+
+    public static class LocationBatchProperties {
+        private boolean enabled = false; // send all driver positions in one request per interval
+        private long intervalMillis = 700;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public long getIntervalMillis() { return intervalMillis; }
+        public void setIntervalMillis(long intervalMillis) { this.intervalMillis = intervalMillis; }
+    }
 }
@@ -0,0 +1,35 @@
+package com.rss.simulation.client.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncodedRouteTest {
+
+    @Test
+    void decode_expandsCoreWireFormat() {
+        // Produced by the core service's EncodedRoute for the same six steps
+        var encoded = new EncodedRoute("BvABUHgAAG38FtoPAwkAAANkAVACeAMFAQECAgMBBAEAAQ",
+                List.of("Start journey", "Follow Main St", "Follow Harbor Rd", "Arrive at destination"));
+
+        assertThat(encoded.decode()).containsExactly(
+                new Direction(120L, 40L, 50),
+                new Direction(180L, 40L, 40),
+                new Direction(180L, -15L, 40),
+                new Direction(1650L, 990L, 60),
+                new Direction(1648L, 985L, 60),
+                new Direction(1648L, 985L, 60));
+    }
+
+    @Test
+    void decoded_replacesEncodedRouteWithDirections() {
+        var response = new RouteResponse(null, null, null, new EncodedRoute("AQICAWQBAQAB", List.of()));
+
+        var decoded = response.decoded();
+
+        assertThat(decoded.encodedRoute()).isNull();
+        assertThat(decoded.route()).containsExactly(new Direction(1L, 1L, 50));
+    }
+}